@@ -15,17 +15,26 @@
  */
 package org.javersion.core;
 
+import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
 import static org.javersion.core.BranchAndRevision.max;
 import static org.javersion.core.BranchAndRevision.min;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
 
+import org.javersion.util.MapChange;
 import org.javersion.util.MapUtils;
+import org.javersion.util.PersistentHashMap;
 import org.javersion.util.PersistentSortedMap;
 import org.javersion.util.PersistentTreeMap;
 
 import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Lists;
 
 public abstract class AbstractVersionGraph<K, V,
@@ -36,32 +45,80 @@ public abstract class AbstractVersionGraph<K, V,
 
     public final PersistentSortedMap<Revision, VersionNode<K, V, T>> versionNodes;
 
+    /**
+     * Heads after the last added version. Versions may be added in any
+     * revision order, so these are not necessarily the heads of the tip.
+     */
+    private final PersistentSortedMap<BranchAndRevision, VersionNode<K, V, T>> heads;
+
+    private final VersionLog<K, V, T> log;
+
+    private final long logPosition;
+
+    final RevisionIndex index;
+
+    private final MergeCache<K, V> mergeCache;
+
     public AbstractVersionGraph() {
         this(PersistentTreeMap.<Revision, VersionNode<K, V, T>> empty());
     }
 
     protected AbstractVersionGraph(AbstractVersionGraphBuilder<K, V, T, This, B> builder) {
-        this(builder.versionNodes.toPersistentMap());
+        this.versionNodes = builder.versionNodes.toPersistentMap();
+        this.heads = builder.heads;
+        this.log = builder.log;
+        this.logPosition = builder.logPosition;
+        this.index = builder.index;
+        this.mergeCache = builder.mergeCache;
     }
 
     protected AbstractVersionGraph(PersistentSortedMap<Revision, VersionNode<K, V, T>> versionNodes) {
         this.versionNodes = versionNodes;
+        this.heads = versionNodes.isEmpty()
+                ? PersistentTreeMap.<BranchAndRevision, VersionNode<K, V, T>> empty()
+                : versionNodes.getLastEntry().getValue().heads;
+        this.log = null;
+        this.logPosition = 0;
+        this.index = new RevisionIndex();
+        this.mergeCache = null;
     }
 
     public final This commit(T version) {
         B builder = newBuilder();
         builder.add(version);
+        builder.append(Collections.singletonList(version));
         return builder.build();
     }
 
     public final This commit(Iterable<T> versions) {
+        versions = ImmutableList.copyOf(versions);
         B builder = newBuilder();
         for (T version : versions) {
             builder.add(version);
         }
+        builder.append(versions);
         return builder.build();
     }
 
+    public VersionLog<K, V, T> getLog() {
+        return log;
+    }
+
+    /**
+     * @return position of the log after the last version of this graph.
+     */
+    public long getLogPosition() {
+        return logPosition;
+    }
+
+    /**
+     * @return materialized state of all versions so that versions appended
+     *         later may refer to any of them.
+     */
+    public Checkpoint<K, V, T> checkpoint() {
+        return Checkpoint.of(versionNodes.values(), index, logPosition);
+    }
+
     protected abstract B newBuilder();
 
     @Override
@@ -77,7 +134,67 @@ public abstract class AbstractVersionGraph<K, V,
         return node;
     }
 
+    /**
+     * Lazily resolved property changes between two revisions. Null from-revision
+     * denotes an empty graph. Properties shared by both versions are skipped
+     * without comparing them one by one.
+     */
+    public final Iterable<PropertyChange<K, V>> diff(Revision from, Revision to) {
+        PersistentHashMap<K, VersionProperty<V>> oldProperties = from != null
+                ? getVersionNode(from).mergedProperties
+                : PersistentHashMap.<K, VersionProperty<V>>empty();
+        PersistentHashMap<K, VersionProperty<V>> newProperties = getVersionNode(to).mergedProperties;
+        return filter(transform(oldProperties.diff(newProperties), new Function<MapChange<K, VersionProperty<V>>, PropertyChange<K, V>>() {
+            @Override
+            public PropertyChange<K, V> apply(MapChange<K, VersionProperty<V>> input) {
+                return new PropertyChange<>(input.getKey(), input.getOldValue(), input.getNewValue());
+            }
+        }), VALUE_CHANGED);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final Predicate<PropertyChange> VALUE_CHANGED = new Predicate<PropertyChange>() {
+        @Override
+        public boolean apply(PropertyChange input) {
+            return !Objects.equal(input.getOldValue(), input.getNewValue());
+        }
+    };
+
+    /**
+     * @return graph using given cache (or none if null) for merges.
+     */
+    public final This withMergeCache(MergeCache<K, V> mergeCache) {
+        B builder = newBuilder();
+        builder.mergeCache = mergeCache;
+        return builder.build();
+    }
+
+    public MergeCache<K, V> getMergeCache() {
+        return mergeCache;
+    }
+
     public final Merge<K, V> mergeBranches(Iterable<String> branches) {
+        if (mergeCache == null) {
+            return doMergeBranches(branches);
+        }
+        List<ImmutableSortedSet<Revision>> heads = Lists.newArrayList();
+        for (String branch : branches) {
+            ImmutableSortedSet.Builder<Revision> branchHeads = ImmutableSortedSet.naturalOrder();
+            for (VersionNode<K, V, T> head : getHeads(branch)) {
+                branchHeads.add(head.getRevision());
+            }
+            heads.add(branchHeads.build());
+        }
+        final Iterable<String> mergedBranches = ImmutableList.copyOf(branches);
+        return mergeCache.get(new MergeCache.Key(MergeCache.Kind.BRANCHES, heads), new Callable<Merge<K, V>>() {
+            @Override
+            public Merge<K, V> call() {
+                return doMergeBranches(mergedBranches);
+            }
+        });
+    }
+
+    private Merge<K, V> doMergeBranches(Iterable<String> branches) {
         List<VersionMerge<K, V>> mergedBranches = Lists.newArrayList();
         for (String branch : branches) {
             mergedBranches.add(new VersionMerge<>(getHeads(branch)));
@@ -86,6 +203,19 @@ public abstract class AbstractVersionGraph<K, V,
     }
 
     public final Merge<K, V> mergeRevisions(Iterable<Revision> revisions) {
+        if (mergeCache == null) {
+            return doMergeRevisions(revisions);
+        }
+        final ImmutableSortedSet<Revision> heads = ImmutableSortedSet.copyOf(revisions);
+        return mergeCache.get(new MergeCache.Key(MergeCache.Kind.REVISIONS, ImmutableList.of(heads)), new Callable<Merge<K, V>>() {
+            @Override
+            public Merge<K, V> call() {
+                return doMergeRevisions(heads);
+            }
+        });
+    }
+
+    private Merge<K, V> doMergeRevisions(Iterable<Revision> revisions) {
         return new VersionMerge<>(transform(revisions, this));
     }
 
@@ -95,10 +225,7 @@ public abstract class AbstractVersionGraph<K, V,
     }
 
     public PersistentSortedMap<BranchAndRevision, VersionNode<K, V, T>> getHeads() {
-        if (versionNodes.isEmpty()) {
-            return PersistentTreeMap.empty();
-        }
-        return getTip().heads;
+        return heads;
     }
 
     public boolean isEmpty() {
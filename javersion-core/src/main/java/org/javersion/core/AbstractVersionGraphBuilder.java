@@ -15,6 +15,7 @@
  */
 package org.javersion.core;
 
+import static com.google.common.collect.Iterables.getFirst;
 import static com.google.common.collect.Iterables.transform;
 
 import org.javersion.util.Check;
@@ -35,6 +36,14 @@ public abstract class AbstractVersionGraphBuilder<K,
 
     MutableSortedMap<Revision, VersionNode<K, V, T>> versionNodes;
 
+    final VersionLog<K, V, T> log;
+
+    long logPosition;
+
+    RevisionIndex index;
+
+    MergeCache<K, V> mergeCache;
+
     private Function<Revision, VersionNode<K, V, T>> revisionToVersionNode = new Function<Revision, VersionNode<K, V, T>>() {
         @Override
         public VersionNode<K, V, T> apply(Revision input) {
@@ -44,17 +53,82 @@ public abstract class AbstractVersionGraphBuilder<K,
 
 
     protected AbstractVersionGraphBuilder() {
+        this((VersionLog<K, V, T>) null);
+    }
+
+    protected AbstractVersionGraphBuilder(VersionLog<K, V, T> log) {
+        this(log, null);
+    }
+
+    /**
+     * Restores given checkpoint (if any) and replays versions appended to the log after it.
+     */
+    protected AbstractVersionGraphBuilder(VersionLog<K, V, T> log, Checkpoint<K, V, T> checkpoint) {
+        this.log = log;
         reset();
+        if (checkpoint != null) {
+            restore(checkpoint);
+        }
+        if (log != null) {
+            long from = checkpoint != null ? checkpoint.logPosition : 0;
+            this.logPosition = log.position();
+            for (T version : log.from(from)) {
+                add(version);
+            }
+        }
     }
 
     protected AbstractVersionGraphBuilder(G parentGraph) {
         this.versionNodes = parentGraph.versionNodes.toMutableMap();
         this.heads = parentGraph.getHeads();
+        this.log = parentGraph.getLog();
+        this.logPosition = parentGraph.getLogPosition();
+        this.index = parentGraph.index;
+        this.mergeCache = parentGraph.getMergeCache();
     }
 
     private void reset() {
         this.versionNodes = new MutableTreeMap<>();
         this.heads = PersistentTreeMap.empty();
+        this.index = new RevisionIndex();
+    }
+
+    /**
+     * Nodes are restored in topological order, so heads are resolved as in
+     * {@link #add(Version)}.
+     */
+    private void restore(Checkpoint<K, V, T> checkpoint) {
+        index = checkpoint.index;
+        for (Checkpoint.Node<K, V, T> node : checkpoint.nodes) {
+            for (Revision parentRevision : node.version.parentRevisions) {
+                VersionNode<K, V, T> parent = versionNodes.get(parentRevision);
+                if (parent != null && parent.getBranch().equals(node.version.branch)) {
+                    heads = heads.dissoc(new BranchAndRevision(parent));
+                }
+            }
+            VersionNode<K, V, T> versionNode = new VersionNode<K, V, T>(node, heads);
+            heads = versionNode.heads;
+            versionNodes.put(versionNode.getRevision(), versionNode);
+        }
+    }
+
+    /**
+     * Appends versions to the log only if this builder is based on the latest
+     * state of it. Stale graphs (e.g. discarded forks or lost CAS rounds) are
+     * rejected so that the log and the returned graph never diverge.
+     *
+     * @throws IllegalStateException if log has been appended after the parent graph.
+     */
+    final void append(Iterable<T> versions) {
+        if (log != null) {
+            synchronized (log) {
+                if (logPosition != log.position()) {
+                    throw new IllegalStateException("Graph is stale: log position " + log.position() + " != " + logPosition);
+                }
+                log.append(versions);
+                logPosition = log.position();
+            }
+        }
     }
 
     public final void add(T version) {
@@ -63,7 +137,8 @@ public abstract class AbstractVersionGraphBuilder<K,
             reset();
         }
         Iterable<VersionNode<K, V, T>> parents = revisionsToNodes(version.parentRevisions);
-        VersionNode<K, V, T> versionNode = new VersionNode<K, V, T>(version, parents, heads);
+        index = index.add(version.revision, getFirst(version.parentRevisions, null));
+        VersionNode<K, V, T> versionNode = new VersionNode<K, V, T>(version, parents, heads, index);
         heads = versionNode.heads;
         versionNodes.put(version.revision, versionNode);
     }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.core;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.javersion.util.Check;
+import org.javersion.util.PersistentHashMap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+
+/**
+ * Materialized merge state of the versions of a graph together with the
+ * position of the {@link VersionLog} it covers. Restoring a graph from a
+ * checkpoint only replays versions appended after that position. All
+ * versions are included as later versions (and merges) may refer to any of
+ * them, not just to the heads.
+ */
+public final class Checkpoint<K, V, T extends Version<K, V>> {
+
+    public static final class Node<K, V, T extends Version<K, V>> {
+
+        public final T version;
+
+        public final PersistentHashMap<K, VersionProperty<V>> mergedProperties;
+
+        public final RevisionSet mergedRevisions;
+
+        public final Multimap<K, VersionProperty<V>> conflicts;
+
+        public Node(T version,
+                    PersistentHashMap<K, VersionProperty<V>> mergedProperties,
+                    RevisionSet mergedRevisions,
+                    Multimap<K, VersionProperty<V>> conflicts) {
+            this.version = Check.notNull(version, "version");
+            this.mergedProperties = Check.notNull(mergedProperties, "mergedProperties");
+            this.mergedRevisions = Check.notNull(mergedRevisions, "mergedRevisions");
+            this.conflicts = Check.notNull(conflicts, "conflicts");
+        }
+
+        Node(VersionNode<K, V, T> versionNode) {
+            this(versionNode.version, versionNode.mergedProperties, versionNode.mergedRevisions, versionNode.conflicts);
+        }
+    }
+
+    /**
+     * Nodes in topological order: parents before children, otherwise in
+     * revision order. Revisions may be skewed or supplied by the caller, so
+     * revision order alone does not guarantee that parents come first.
+     */
+    public final List<Node<K, V, T>> nodes;
+
+    public final RevisionIndex index;
+
+    public final long logPosition;
+
+    public Checkpoint(Iterable<Node<K, V, T>> nodes, RevisionIndex index, long logPosition) {
+        this.nodes = topologicalOrder(nodes);
+        this.index = Check.notNull(index, "index");
+        this.logPosition = logPosition;
+    }
+
+    private static <K, V, T extends Version<K, V>> List<Node<K, V, T>> topologicalOrder(Iterable<Node<K, V, T>> nodes) {
+        Map<Revision, Node<K, V, T>> byRevision = Maps.newTreeMap();
+        for (Node<K, V, T> node : nodes) {
+            byRevision.put(node.version.revision, node);
+        }
+        ImmutableList.Builder<Node<K, V, T>> sorted = ImmutableList.builder();
+        Set<Revision> visited = Sets.newHashSet();
+        Deque<Node<K, V, T>> path = new ArrayDeque<>();
+        Deque<Iterator<Revision>> parents = new ArrayDeque<>();
+        for (Node<K, V, T> root : byRevision.values()) {
+            if (!visited.add(root.version.revision)) {
+                continue;
+            }
+            path.push(root);
+            parents.push(root.version.parentRevisions.iterator());
+            while (!path.isEmpty()) {
+                Iterator<Revision> iter = parents.peek();
+                if (iter.hasNext()) {
+                    Node<K, V, T> parent = byRevision.get(iter.next());
+                    if (parent != null && visited.add(parent.version.revision)) {
+                        path.push(parent);
+                        parents.push(parent.version.parentRevisions.iterator());
+                    }
+                } else {
+                    parents.pop();
+                    sorted.add(path.pop());
+                }
+            }
+        }
+        return sorted.build();
+    }
+
+    static <K, V, T extends Version<K, V>> Checkpoint<K, V, T> of(Iterable<VersionNode<K, V, T>> versionNodes, RevisionIndex index, long logPosition) {
+        List<Node<K, V, T>> nodes = Lists.newArrayList();
+        for (VersionNode<K, V, T> versionNode : versionNodes) {
+            nodes.add(new Node<K, V, T>(versionNode));
+        }
+        return new Checkpoint<K, V, T>(nodes, index, logPosition);
+    }
+}
@@ -23,6 +23,11 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.javersion.util.DiffHandler;
+import org.javersion.util.PersistentHashMap;
+
+import com.google.common.collect.Maps;
+
 public class Diff {
 
     public static <K, V> Map<K, V> diff(Map<K, V> from, Map<K, V> to) {
@@ -36,6 +41,37 @@ public class Diff {
         }
     }
 
+    /**
+     * Structural diff of persistent maps: cost is proportional to the changes between the maps.
+     */
+    public static <K, V> Map<K, V> diff(PersistentHashMap<K, V> from, PersistentHashMap<K, V> to) {
+        notNull(from, "from");
+        notNull(to, "to");
+
+        final Map<K, V> diff = Maps.newHashMap();
+        from.diff(to, new DiffHandler<Map.Entry<K, V>>() {
+            @Override
+            public void insert(Entry<K, V> newEntry) {
+                if (newEntry.getValue() != null) {
+                    diff.put(newEntry.getKey(), newEntry.getValue());
+                }
+            }
+
+            @Override
+            public void update(Entry<K, V> oldEntry, Entry<K, V> newEntry) {
+                diff.put(newEntry.getKey(), newEntry.getValue());
+            }
+
+            @Override
+            public void delete(Entry<K, V> oldEntry) {
+                if (oldEntry.getValue() != null) {
+                    diff.put(oldEntry.getKey(), null);
+                }
+            }
+        });
+        return diff;
+    }
+
     private static <K, V> Map<K, V> diffBySmallerFrom(Map<K, V> from, Map<K, V> to) {
         Map<K, V> diff = newHashMapWithExpectedSize(from.size() + to.size());
         Map<K, V> fromClone = new HashMap<>(from);
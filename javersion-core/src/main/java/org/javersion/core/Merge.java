@@ -15,6 +15,7 @@
  */
 package org.javersion.core;
 
+import static com.google.common.base.Objects.equal;
 import static com.google.common.base.Predicates.notNull;
 import static com.google.common.collect.Maps.filterValues;
 import static com.google.common.collect.Maps.transformValues;
@@ -23,10 +24,10 @@ import java.util.Map;
 import java.util.Set;
 
 import org.javersion.util.PersistentHashMap;
-import org.javersion.util.PersistentHashSet;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 
 public abstract class Merge<K, V> {
@@ -51,7 +52,7 @@ public abstract class Merge<K, V> {
 
     public final PersistentHashMap<K, VersionProperty<V>> mergedProperties;
 
-    public final PersistentHashSet<Revision> mergedRevisions;
+    public final RevisionSet mergedRevisions;
 
     public final Multimap<K, VersionProperty<V>> conflicts;
 
@@ -62,12 +63,45 @@ public abstract class Merge<K, V> {
         setMergeHeads(mergeBuilder.getHeads());
     }
 
+    protected Merge(PersistentHashMap<K, VersionProperty<V>> mergedProperties, RevisionSet mergedRevisions, Multimap<K, VersionProperty<V>> conflicts) {
+        this.mergedProperties = mergedProperties;
+        this.mergedRevisions = mergedRevisions;
+        this.conflicts = conflicts;
+    }
+
     public abstract Set<Revision> getMergeHeads();
 
     protected abstract void setMergeHeads(Set<Revision> heads);
 
+    /**
+     * Changes from merged properties to newProperties. Values are compared by
+     * lookups into mergedProperties without copying either side. Null values
+     * are equal to missing ones.
+     */
     public Map<K, V> diff(Map<K, V> newProperties) {
-        return Diff.diff(getPropertiesAsPlainMap(), newProperties);
+        Map<K, V> diff = Maps.newLinkedHashMap();
+        int found = 0;
+        for (Map.Entry<K, V> entry : newProperties.entrySet()) {
+            K key = entry.getKey();
+            V newValue = entry.getValue();
+            VersionProperty<V> oldProperty = mergedProperties.get(key);
+            if (oldProperty != null) {
+                found++;
+                if (!equal(oldProperty.value, newValue)) {
+                    diff.put(key, newValue);
+                }
+            } else if (newValue != null) {
+                diff.put(key, newValue);
+            }
+        }
+        if (found < mergedProperties.size()) {
+            for (Map.Entry<K, VersionProperty<V>> entry : mergedProperties) {
+                if (entry.getValue().value != null && !newProperties.containsKey(entry.getKey())) {
+                    diff.put(entry.getKey(), null);
+                }
+            }
+        }
+        return diff;
     }
 
     public Map<K, V> getProperties() {
@@ -17,6 +17,8 @@ package org.javersion.core;
 
 import static com.google.common.base.Objects.equal;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -25,13 +27,13 @@ import org.javersion.util.Check;
 import org.javersion.util.Merger;
 import org.javersion.util.MergerAdapter;
 import org.javersion.util.MutableHashMap;
-import org.javersion.util.MutableHashSet;
 import org.javersion.util.PersistentHashMap;
-import org.javersion.util.PersistentHashSet;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
@@ -41,11 +43,21 @@ public class MergeBuilder<K, V> {
 
     private boolean locked = false;
 
-    private MutableHashMap<K, VersionProperty<V>> mergedProperties = new MutableHashMap<>();
+    /*
+     * Properties and conflicts of the first node are used as such until a
+     * second node is merged. This keeps fast-forwards, e.g. a single parent
+     * overwritten by a version, from copying the parent's state.
+     */
 
-    private MutableHashSet<Revision> mergedRevisions = new MutableHashSet<>();
+    private PersistentHashMap<K, VersionProperty<V>> properties = PersistentHashMap.empty();
 
-    private final ArrayListMultimap<K, VersionProperty<V>> conflicts = ArrayListMultimap.create();
+    private MutableHashMap<K, VersionProperty<V>> mergedProperties;
+
+    private RevisionSet mergedRevisions = RevisionSet.empty();
+
+    private Multimap<K, VersionProperty<V>> inheritedConflicts = ImmutableMultimap.of();
+
+    private ArrayListMultimap<K, VersionProperty<V>> conflicts;
 
     private final Set<Revision> heads = Sets.newHashSet();
 
@@ -59,19 +71,19 @@ public class MergeBuilder<K, V> {
     public PersistentHashMap<K, VersionProperty<V>> getMergedProperties() {
         ensureInitialized();
         locked = true;
-        return mergedProperties.toPersistentMap();
+        return mergedProperties != null ? mergedProperties.toPersistentMap() : properties;
     }
 
-    public PersistentHashSet<Revision> getMergedRevisions() {
+    public RevisionSet getMergedRevisions() {
         ensureInitialized();
         locked = true;
-        return mergedRevisions.toPersistentSet();
+        return mergedRevisions;
     }
 
     public Multimap<K, VersionProperty<V>> getConflicts() {
         ensureInitialized();
         locked = true;
-        return ImmutableMultimap.copyOf(conflicts);
+        return conflicts != null ? ImmutableMultimap.copyOf(conflicts) : inheritedConflicts;
     }
 
     public Set<Revision> getHeads() {
@@ -80,18 +92,37 @@ public class MergeBuilder<K, V> {
         return ImmutableSet.copyOf(heads);
     }
 
-    public final MergeBuilder<K, V> overwrite(Version<K, V> version) {
+    /**
+     * @param index RevisionIndex containing version.revision. Parents of the version
+     *              should have been merged already.
+     */
+    public final MergeBuilder<K, V> overwrite(Version<K, V> version, RevisionIndex index) {
         Check.notNull(version, "version");
+        Check.notNull(index, "index");
         ensureNotLocked();
         ensureInitialized();
 
-        for (Map.Entry<K, V> entry : version.changeset.entrySet()) {
-            mergedProperties.put(entry.getKey(), new VersionProperty<V>(version.revision, entry.getValue()));
-            conflicts.removeAll(entry.getKey());
+        int ordinal = index.ordinal(version.revision);
+        if (mergedProperties == null) {
+            Map<K, VersionProperty<V>> changes = Maps.newHashMapWithExpectedSize(version.changeset.size());
+            for (Map.Entry<K, V> entry : version.changeset.entrySet()) {
+                changes.put(entry.getKey(), new VersionProperty<V>(version.revision, ordinal, entry.getValue()));
+            }
+            properties = properties.assocAll(changes);
+        } else {
+            for (Map.Entry<K, V> entry : version.changeset.entrySet()) {
+                mergedProperties.put(entry.getKey(), new VersionProperty<V>(version.revision, ordinal, entry.getValue()));
+            }
+        }
+        for (K key : version.changeset.keySet()) {
+            if (conflicts != null) {
+                conflicts.removeAll(key);
+            } else if (inheritedConflicts.containsKey(key)) {
+                mutableConflicts().removeAll(key);
+            }
         }
         heads.removeAll(version.parentRevisions);
-        mergedRevisions.addAllFrom(version.parentRevisions);
-        mergedRevisions.add(version.revision);
+        mergedRevisions = mergedRevisions.with(version.revision, index);
         heads.add(version.revision);
         return this;
     }
@@ -100,13 +131,54 @@ public class MergeBuilder<K, V> {
         Check.that(!locked, "MergeHelper is locked");
     }
 
+    /**
+     * Nodes that are ancestors of (dominated by) other nodes are skipped. If only
+     * one node remains, the merge is a fast-forward to that node.
+     */
     public final MergeBuilder<K, V> mergeAll(final Iterable<? extends Merge<K, V>> nodes) {
-        for (Merge<K, V> node : nodes) {
+        for (Merge<K, V> node : withoutDominated(nodes)) {
             merge(node);
         }
         return this;
     }
 
+    private static <K, V> List<Merge<K, V>> withoutDominated(Iterable<? extends Merge<K, V>> nodes) {
+        List<Merge<K, V>> candidates = Lists.<Merge<K, V>> newArrayList(nodes);
+        if (candidates.size() < 2) {
+            return candidates;
+        }
+        List<Merge<K, V>> result = Lists.newArrayListWithCapacity(candidates.size());
+        for (int i=0; i < candidates.size(); i++) {
+            Merge<K, V> node = candidates.get(i);
+            if (!isDominated(node, i, candidates)) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    private static <K, V> boolean isDominated(Merge<K, V> node, int index, List<Merge<K, V>> candidates) {
+        for (int j=0; j < candidates.size(); j++) {
+            if (j != index) {
+                Merge<K, V> other = candidates.get(j);
+                // Of equal nodes, retain the first one
+                if (dominates(other, node) && (j < index || !dominates(node, other))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static <K, V> boolean dominates(Merge<K, V> dominant, Merge<K, V> node) {
+        for (Revision head : node.getMergeHeads()) {
+            if (!dominant.mergedRevisions.contains(head)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public final MergeBuilder<K, V> merge(final Merge<K, V> node) {
         Check.notNull(node, "node");
         ensureNotLocked();
@@ -115,13 +187,14 @@ public class MergeBuilder<K, V> {
             firstVersion(node);
         } else {
             nextVersion(node);
+            mutableConflicts().putAll(node.conflicts);
         }
-        conflicts.putAll(node.conflicts);
         heads.addAll(node.getMergeHeads());
         return this;
     }
 
     private void nextVersion(final Merge<K, V> node) {
+        final ArrayListMultimap<K, VersionProperty<V>> conflicts = mutableConflicts();
         Merger<Entry<K, VersionProperty<V>>> merger = new MergerAdapter<Entry<K, VersionProperty<V>>>() {
             @Override
             public boolean merge(
@@ -131,11 +204,11 @@ public class MergeBuilder<K, V> {
                 VersionProperty<V> newValue = newEntry.getValue();
 
                 // newValue from common ancestor?
-                if (mergedRevisions.contains(newValue.revision)) {
+                if (mergedRevisions.contains(newValue)) {
                     return false;
                 }
                 // oldValue from common ancestor?
-                else if (node.mergedRevisions.contains(oldValue.revision)) {
+                else if (node.mergedRevisions.contains(oldValue)) {
                     return true;
                 }
                 // Conflicting value?
@@ -157,15 +230,30 @@ public class MergeBuilder<K, V> {
             }
         };
 
+        if (mergedProperties == null) {
+            mergedProperties = properties.toMutableMap();
+        }
         mergedProperties.mergeAll(node.mergedProperties, merger);
-        mergedRevisions.addAllFrom(node.mergedRevisions);
-        heads.removeAll(node.mergedRevisions.asSet());
+        mergedRevisions = mergedRevisions.union(node.mergedRevisions);
+        for (Iterator<Revision> iter = heads.iterator(); iter.hasNext();) {
+            if (node.mergedRevisions.contains(iter.next())) {
+                iter.remove();
+            }
+        }
     }
 
     private void firstVersion(final Merge<K, V> node) {
         first = false;
-        mergedProperties = node.mergedProperties.toMutableMap();
-        mergedRevisions = node.mergedRevisions.toMutableSet();
+        properties = node.mergedProperties;
+        mergedRevisions = node.mergedRevisions;
+        inheritedConflicts = node.conflicts;
+    }
+
+    private ArrayListMultimap<K, VersionProperty<V>> mutableConflicts() {
+        if (conflicts == null) {
+            conflicts = ArrayListMultimap.create(inheritedConflicts);
+        }
+        return conflicts;
     }
 
     protected boolean replaceWith(VersionProperty<V> oldValue, VersionProperty<V> newValue) {
@@ -175,8 +263,6 @@ public class MergeBuilder<K, V> {
     private void ensureInitialized() {
         if (first) {
             first = false;
-            mergedProperties = new MutableHashMap<>();
-            mergedRevisions = new MutableHashSet<>();
         }
     }
 
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.core;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.javersion.util.Check;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Bounded cache of merge results keyed by merged head revisions. As versions
+ * are immutable, a result depends only on the revisions merged and a cache may
+ * be shared by all graphs of the same history.
+ */
+public final class MergeCache<K, V> {
+
+    enum Kind {
+        BRANCHES,
+        REVISIONS
+    }
+
+    static final class Key {
+
+        private final Kind kind;
+
+        private final List<ImmutableSortedSet<Revision>> heads;
+
+        private final int hashCode;
+
+        Key(Kind kind, List<ImmutableSortedSet<Revision>> heads) {
+            this.kind = kind;
+            this.heads = ImmutableList.copyOf(heads);
+            this.hashCode = 31 * kind.hashCode() + this.heads.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return this.kind == other.kind && this.hashCode == other.hashCode && this.heads.equals(other.heads);
+            } else {
+                return false;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return toStringHelper(this).add("kind", kind).add("heads", heads).toString();
+        }
+    }
+
+    /**
+     * Estimated weight of a merge: number of properties and conflicts.
+     */
+    private static final Weigher<Key, Merge<?, ?>> MERGE_WEIGHER = new Weigher<Key, Merge<?, ?>>() {
+        @Override
+        public int weigh(Key key, Merge<?, ?> merge) {
+            return 1 + merge.mergedProperties.size() + merge.conflicts.size();
+        }
+    };
+
+    /**
+     * @param maximumSize maximum number of merges to keep.
+     */
+    public static <K, V> MergeCache<K, V> maximumSize(long maximumSize) {
+        return new MergeCache<>(CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().<Key, Merge<?, ?>>build());
+    }
+
+    /**
+     * @param maximumWeight maximum total weight of merges to keep. Weight of a
+     *        merge is the number of it's properties and conflicts.
+     */
+    public static <K, V> MergeCache<K, V> maximumWeight(long maximumWeight) {
+        return new MergeCache<>(CacheBuilder.newBuilder().maximumWeight(maximumWeight).weigher(MERGE_WEIGHER).recordStats().<Key, Merge<?, ?>>build());
+    }
+
+    private final Cache<Key, Merge<?, ?>> cache;
+
+    private MergeCache(Cache<Key, Merge<?, ?>> cache) {
+        this.cache = Check.notNull(cache, "cache");
+    }
+
+    @SuppressWarnings("unchecked")
+    Merge<K, V> get(Key key, Callable<? extends Merge<K, V>> merge) {
+        try {
+            return (Merge<K, V>) cache.get(key, merge);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.core;
+
+/**
+ * Change of a single property between two revisions. Old property is null if
+ * the key did not exist in the old revision and new property vice versa.
+ */
+public final class PropertyChange<K, V> {
+
+    public final K key;
+
+    public final VersionProperty<V> oldProperty;
+
+    public final VersionProperty<V> newProperty;
+
+    public PropertyChange(K key, VersionProperty<V> oldProperty, VersionProperty<V> newProperty) {
+        this.key = key;
+        this.oldProperty = oldProperty;
+        this.newProperty = newProperty;
+    }
+
+    public V getOldValue() {
+        return oldProperty != null ? oldProperty.value : null;
+    }
+
+    public V getNewValue() {
+        return newProperty != null ? newProperty.value : null;
+    }
+
+    public String toString() {
+        return key + ": " + oldProperty + " -> " + newProperty;
+    }
+}
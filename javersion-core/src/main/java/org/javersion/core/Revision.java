@@ -50,6 +50,14 @@ public final class Revision implements Comparable<Revision> {
         this.node = node;
     }
 
+    public long getTimeSeq() {
+        return timeSeq;
+    }
+
+    public long getNode() {
+        return node;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == this) {
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.javersion.util.Check;
+import org.javersion.util.PersistentHashMap;
+
+/**
+ * Interns the revisions of a version graph to dense int ordinals and labels
+ * them for reachability. History is decomposed into chains that follow first
+ * parents: a revision extends the chain of its first parent if the parent is
+ * the tip of that chain, otherwise it starts a new chain. Reaching a position
+ * in a chain implies reaching every earlier position of the same chain, so an
+ * ancestor set only needs the highest position reached per chain (see
+ * {@link RevisionSet}).
+ * <p>
+ * The index is persistent: adding a revision returns a new index that
+ * extends this one, i.e. ordinals and labels of existing revisions never
+ * change. Label arrays are shared with the extending index as long as no
+ * other index has been derived from the same state; a fork copies them.
+ */
+public final class RevisionIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final PersistentHashMap<Revision, Integer> ordinals;
+
+    private final Revision[] revisions;
+
+    private final int[] chains;
+
+    private final int[] positions;
+
+    /**
+     * Number of slots of the shared arrays that have been claimed by this
+     * index or any index extending it in place.
+     */
+    private final AtomicInteger claimed;
+
+    private final int size;
+
+    private final PersistentHashMap<Integer, Integer> chainLengths;
+
+    private final int chainCount;
+
+    public RevisionIndex() {
+        this(PersistentHashMap.<Revision, Integer>empty(),
+                new Revision[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY],
+                new AtomicInteger(), 0,
+                PersistentHashMap.<Integer, Integer>empty(), 0);
+    }
+
+    private RevisionIndex(PersistentHashMap<Revision, Integer> ordinals,
+                          Revision[] revisions, int[] chains, int[] positions,
+                          AtomicInteger claimed, int size,
+                          PersistentHashMap<Integer, Integer> chainLengths, int chainCount) {
+        this.ordinals = ordinals;
+        this.revisions = revisions;
+        this.chains = chains;
+        this.positions = positions;
+        this.claimed = claimed;
+        this.size = size;
+        this.chainLengths = chainLengths;
+        this.chainCount = chainCount;
+    }
+
+    /**
+     * @return index containing the revision. This index if the revision is
+     *         already indexed.
+     */
+    public RevisionIndex add(Revision revision, Revision firstParent) {
+        Check.notNull(revision, "revision");
+        if (ordinals.containsKey(revision)) {
+            return this;
+        }
+        if (firstParent != null) {
+            int parent = ordinal(firstParent);
+            int parentChain = chains[parent];
+            int parentPosition = positions[parent];
+            if (chainLength(parentChain) == parentPosition + 1) {
+                return put(revision, parentChain, parentPosition + 1);
+            }
+        }
+        return put(revision, chainCount, 0);
+    }
+
+    /**
+     * Restore a previously assigned label. Restoring labels in ordinal order
+     * reproduces the original ordinals.
+     *
+     * @return index containing the revision as its last ordinal.
+     */
+    public RevisionIndex put(Revision revision, int chain, int position) {
+        Check.notNull(revision, "revision");
+        int ordinal = size;
+        Revision[] revisions = this.revisions;
+        int[] chains = this.chains;
+        int[] positions = this.positions;
+        AtomicInteger claimed = this.claimed;
+        if (ordinal == revisions.length || !claimed.compareAndSet(ordinal, ordinal + 1)) {
+            // Slot is taken by a fork (or arrays are full): copy our prefix
+            int capacity = ordinal == revisions.length ? ordinal * 2 : revisions.length;
+            revisions = Arrays.copyOf(revisions, capacity);
+            chains = Arrays.copyOf(chains, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            claimed = new AtomicInteger(ordinal + 1);
+        }
+        revisions[ordinal] = revision;
+        chains[ordinal] = chain;
+        positions[ordinal] = position;
+        int length = Math.max(chainLength(chain), position + 1);
+        return new RevisionIndex(
+                ordinals.assoc(revision, ordinal),
+                revisions, chains, positions,
+                claimed, ordinal + 1,
+                chainLengths.assoc(chain, length), Math.max(chainCount, chain + 1));
+    }
+
+    /**
+     * @return true if other contains all revisions of this index with the
+     *         same labels, i.e. other is this or derived from this.
+     */
+    public boolean isPrefixOf(RevisionIndex other) {
+        if (other == this) {
+            return true;
+        }
+        if (other.size < size) {
+            return false;
+        }
+        if (size == 0 || other.revisions == revisions) {
+            return true;
+        }
+        int last = size - 1;
+        return revisions[last].equals(other.revisions[last])
+                && chains[last] == other.chains[last]
+                && positions[last] == other.positions[last];
+    }
+
+    public int ordinal(Revision revision) {
+        Integer ordinal = ordinals.get(revision);
+        if (ordinal == null) {
+            throw new VersionNotFoundException(revision);
+        }
+        return ordinal;
+    }
+
+    /**
+     * @return ordinal of the revision or -1 if not found.
+     */
+    public int find(Revision revision) {
+        Integer ordinal = ordinals.get(revision);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public boolean contains(Revision revision) {
+        return ordinals.containsKey(revision);
+    }
+
+    public Revision revision(int ordinal) {
+        checkOrdinal(ordinal);
+        return revisions[ordinal];
+    }
+
+    public int chain(int ordinal) {
+        checkOrdinal(ordinal);
+        return chains[ordinal];
+    }
+
+    public int position(int ordinal) {
+        checkOrdinal(ordinal);
+        return positions[ordinal];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int chainLength(int chain) {
+        Integer length = chainLengths.get(chain);
+        return length != null ? length : 0;
+    }
+
+    private void checkOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("ordinal: " + ordinal);
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.core;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.javersion.util.Check;
+import org.javersion.util.MergerAdapter;
+import org.javersion.util.PersistentHashMap;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Immutable set of revisions backed by a {@link RevisionIndex}. Instead of
+ * the revisions themselves, only the highest position reached in each chain
+ * is stored. For a linear history this is a single entry regardless of the
+ * length of the history. Sets backed by indexes of the same lineage may be
+ * combined; the result is backed by the more recent index.
+ */
+public final class RevisionSet {
+
+    private static final RevisionSet EMPTY = new RevisionSet(null, PersistentHashMap.<Integer, Integer> empty());
+
+    private static final MergerAdapter<Map.Entry<Integer, Integer>> MAX_POSITION = new MergerAdapter<Map.Entry<Integer, Integer>>() {
+        @Override
+        public boolean merge(Map.Entry<Integer, Integer> oldEntry, Map.Entry<Integer, Integer> newEntry) {
+            return oldEntry.getValue() < newEntry.getValue();
+        }
+    };
+
+    public static RevisionSet empty() {
+        return EMPTY;
+    }
+
+    public final RevisionIndex index;
+
+    /**
+     * Highest position reached per chain.
+     */
+    public final PersistentHashMap<Integer, Integer> chains;
+
+    public RevisionSet(RevisionIndex index, PersistentHashMap<Integer, Integer> chains) {
+        this.index = index;
+        this.chains = Check.notNull(chains, "chains");
+    }
+
+    public boolean contains(Revision revision) {
+        if (index == null) {
+            return false;
+        }
+        int ordinal = index.find(revision);
+        return ordinal >= 0 && contains(ordinal);
+    }
+
+    /**
+     * Property's ordinal is used if it refers to the same revision in this
+     * set's index.
+     */
+    public boolean contains(VersionProperty<?> property) {
+        if (index == null) {
+            return false;
+        }
+        int ordinal = property.ordinal;
+        if (ordinal >= 0 && ordinal < index.size() && index.revision(ordinal).equals(property.revision)) {
+            return contains(ordinal);
+        }
+        return contains(property.revision);
+    }
+
+    /**
+     * @param ordinal ordinal of a revision in this set's index.
+     */
+    public boolean contains(int ordinal) {
+        if (ordinal >= index.size()) {
+            return false;
+        }
+        Integer position = chains.get(index.chain(ordinal));
+        return position != null && position >= index.position(ordinal);
+    }
+
+    public boolean isEmpty() {
+        return chains.size() == 0;
+    }
+
+    public RevisionSet with(Revision revision, RevisionIndex index) {
+        Check.that(this.index == null || this.index.isPrefixOf(index), "Incompatible RevisionIndex");
+        int ordinal = index.ordinal(revision);
+        if (this.index != null && contains(ordinal)) {
+            return this;
+        }
+        return new RevisionSet(index, chains.assoc(index.chain(ordinal), index.position(ordinal)));
+    }
+
+    public RevisionSet union(RevisionSet other) {
+        if (other.isEmpty() || other.chains == this.chains) {
+            return this;
+        } else if (this.isEmpty()) {
+            return other;
+        }
+        RevisionIndex index;
+        if (this.index.isPrefixOf(other.index)) {
+            index = other.index;
+        } else {
+            Check.that(other.index.isPrefixOf(this.index), "Incompatible RevisionIndex");
+            index = this.index;
+        }
+        PersistentHashMap<Integer, Integer> union = chains.mergeAll(other.chains, MAX_POSITION);
+        if (union == chains && index == this.index) {
+            return this;
+        }
+        return new RevisionSet(index, union);
+    }
+
+    /**
+     * Materializes the revisions of this set. This requires a scan over the whole index.
+     */
+    public Set<Revision> asSet() {
+        if (index == null) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<Revision> revisions = ImmutableSet.builder();
+        for (int ordinal = 0, size = index.size(); ordinal < size; ordinal++) {
+            if (contains(ordinal)) {
+                revisions.add(index.revision(ordinal));
+            }
+        }
+        return revisions.build();
+    }
+
+    @Override
+    public String toString() {
+        return asSet().toString();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.core;
+
+/**
+ * Durable, append-only sequence of versions. A version graph bound to a log
+ * appends every committed version to it before the new graph is returned.
+ * Only a graph at the current position of the log may commit; the check and
+ * append are done while holding the log's monitor.
+ * Iteration returns versions in the order they were appended.
+ */
+public interface VersionLog<K, V, T extends Version<K, V>> extends Iterable<T> {
+
+    /**
+     * Appends given versions atomically: after a failure or crash either all
+     * or none of them are found in the log.
+     */
+    void append(Iterable<T> versions);
+
+    /**
+     * @return opaque position after the last appended version.
+     */
+    long position();
+
+    /**
+     * @return versions appended after given position.
+     */
+    Iterable<T> from(long position);
+
+}
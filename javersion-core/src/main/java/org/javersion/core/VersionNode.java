@@ -29,8 +29,8 @@ public final class VersionNode<K, V, T extends Version<K, V>> extends Merge<K, V
 
     public final PersistentSortedMap<BranchAndRevision, VersionNode<K, V, T>> heads;
 
-    public VersionNode(T version, Iterable<VersionNode<K, V, T>> parents, PersistentSortedMap<BranchAndRevision, VersionNode<K, V, T>> heads) {
-        super(new MergeBuilder<K, V>(toMergeNodes(parents)).overwrite(version));
+    public VersionNode(T version, Iterable<VersionNode<K, V, T>> parents, PersistentSortedMap<BranchAndRevision, VersionNode<K, V, T>> heads, RevisionIndex index) {
+        super(new MergeBuilder<K, V>(toMergeNodes(parents)).overwrite(version, index));
 
         this.version = version;
 
@@ -44,6 +44,12 @@ public final class VersionNode<K, V, T extends Version<K, V>> extends Merge<K, V
         this.heads = mutableHeads.toPersistentMap();
     }
 
+    VersionNode(Checkpoint.Node<K, V, T> node, PersistentSortedMap<BranchAndRevision, VersionNode<K, V, T>> heads) {
+        super(node.mergedProperties, node.mergedRevisions, node.conflicts);
+        this.version = node.version;
+        this.heads = heads.assoc(new BranchAndRevision(this), this);
+    }
+
     public Revision getRevision() {
         return version.revision;
     }
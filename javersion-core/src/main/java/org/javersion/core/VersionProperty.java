@@ -19,10 +19,23 @@ public final class VersionProperty<V> {
 
     public final Revision revision;
 
+    /**
+     * Ordinal of the revision in graph's RevisionIndex or -1 if not known.
+     * As the index is persistent, the ordinal is stable in the graph and in
+     * all graphs derived from it, but not in sibling forks: it's only a hint
+     * that is verified against the revision before use.
+     */
+    public final int ordinal;
+
     public final V value;
 
     public VersionProperty(Revision revision, V value) {
+        this(revision, -1, value);
+    }
+
+    public VersionProperty(Revision revision, int ordinal, V value) {
         this.revision = revision;
+        this.ordinal = ordinal;
         this.value = value;
     }
 
@@ -30,13 +30,24 @@ import org.javersion.reflect.TypeDescriptor;
 
 import com.google.common.collect.Maps;
 
+/**
+ * Describes one schema at a time and is not thread safe. Shared state
+ * (TypeMappings, TypeDescriptors) is safe for concurrent use, so threads
+ * should use their own context, e.g. through SchemaCache.
+ */
 public class DescribeContext {
     
+    /**
+     * @deprecated shared instance is not thread safe, use new DescribeContext or SchemaCache
+     */
+    @Deprecated
     public static final DescribeContext DEFAULT = new DescribeContext(TypeMappings.DEFAULT);
     
     private final Map<LocalTypeDescriptor, Schema> schemaMappings = Maps.newHashMap();
     
     private final TypeMappings typeMappings;
+
+    private final Map<LocalTypeDescriptor, TypeMapping[]> typeMappingCandidates = Maps.newHashMap();
     
     private final Deque<QueueItem<SubPath, LocalTypeDescriptor>> queue = new ArrayDeque<>();
 
@@ -136,8 +147,8 @@ public class DescribeContext {
         return schema;
     }
     
-    private synchronized ValueType createValueType(PropertyPath path, LocalTypeDescriptor localTypeDescriptor) {
-        TypeMapping typeMapping = typeMappings.getTypeMapping(path, localTypeDescriptor);
+    private ValueType createValueType(PropertyPath path, LocalTypeDescriptor localTypeDescriptor) {
+        TypeMapping typeMapping = typeMappings.getTypeMapping(path, localTypeDescriptor, typeMappingCandidates);
         return typeMapping.describe(path, localTypeDescriptor.typeDescriptor, this);
     }
     
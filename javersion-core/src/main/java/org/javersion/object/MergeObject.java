@@ -11,9 +11,28 @@ public class MergeObject<T> {
 
     public final Merge<PropertyPath, Object> merge;
 
+    /**
+     * Index of merged properties for patching, built lazily.
+     */
+    private volatile PropertyIndex index;
+
     public MergeObject(T object, Merge<PropertyPath, Object> merge) {
         this.object = object;
         this.merge = merge;
     }
 
+    MergeObject(T object, Merge<PropertyPath, Object> merge, PropertyIndex index) {
+        this(object, merge);
+        this.index = index;
+    }
+
+    PropertyIndex getIndex() {
+        PropertyIndex result = index;
+        if (result == null) {
+            result = PropertyIndex.of(merge.getProperties());
+            index = result;
+        }
+        return result;
+    }
+
 }
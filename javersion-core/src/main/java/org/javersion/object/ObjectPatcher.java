@@ -0,0 +1,231 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.object;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.javersion.object.types.ListType;
+import org.javersion.object.types.ObjectType;
+import org.javersion.object.types.ValueType;
+import org.javersion.path.PropertyPath.Index;
+import org.javersion.path.PropertyPath.Property;
+import org.javersion.path.PropertyPath.SubPath;
+import org.javersion.path.PropertyPath;
+import org.javersion.path.PropertyTree;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Updates a live object graph in place to match properties, given the paths
+ * that changed. A changed path is re-read into a field of its nearest live
+ * ObjectType ancestor. Only subtrees of re-read paths are visited, found from
+ * an index of properties. Lists on the way are rebuilt reusing their unchanged
+ * elements. Other values (maps, sets, nulls) are re-read as a whole.
+ * Re-reading a reference requires reading the root again.
+ */
+final class ObjectPatcher {
+
+    private static final Object UNKNOWN = new Object();
+
+    private final SchemaRoot schemaRoot;
+
+    private final Map<PropertyPath, Object> properties;
+
+    private final PropertyIndex index;
+
+    /**
+     * Live objects by path, UNKNOWN if not reachable.
+     */
+    private final Map<PropertyPath, Object> liveObjects = Maps.newHashMap();
+
+    /**
+     * Paths that are re-read from properties.
+     */
+    private final Set<PropertyPath> dirty = Sets.newHashSet();
+
+    private final Set<PropertyPath> prefixes = Sets.newHashSet();
+
+    private final Set<PropertyPath> lists = Sets.newHashSet();
+
+    private final List<SubPath> fields = Lists.newArrayList();
+
+    /**
+     * @param index of properties.
+     */
+    ObjectPatcher(SchemaRoot schemaRoot, Map<PropertyPath, Object> properties, PropertyIndex index, Object root) {
+        this.schemaRoot = schemaRoot;
+        this.properties = properties;
+        this.index = index;
+        liveObjects.put(PropertyPath.ROOT, root);
+    }
+
+    /**
+     * @return false if root object needs to be read again.
+     */
+    boolean patch(Collection<PropertyPath> changedPaths) {
+        Set<PropertyPath> changes = ImmutableSet.copyOf(changedPaths);
+        for (PropertyPath path : changes) {
+            if (!hasAncestorIn(path, changes) && !plan(path)) {
+                return false;
+            }
+        }
+        List<PropertyPath> projection = Lists.newArrayList();
+        for (PropertyPath prefix : prefixes) {
+            if (!hasAncestorIn(prefix, prefixes) && index.contains(prefix)) {
+                index.addSubtree(prefix, projection);
+            }
+        }
+        if (readsReferences(projection)) {
+            return false;
+        }
+        for (PropertyPath prefix : prefixes) {
+            addAncestors(prefix, projection);
+        }
+        for (PropertyPath path : lists) {
+            List<?> list = (List<?>) liveObjects.get(path);
+            for (SubPath element : index.getChildren(path)) {
+                if (properties.containsKey(element)) {
+                    projection.add(element);
+                }
+            }
+            for (int i=0; i < list.size(); i++) {
+                Index index = path.index(i);
+                if (!dirty.contains(index)) {
+                    liveObjects.put(index, list.get(i));
+                }
+            }
+        }
+
+        ReadContext context = new ReadContext(schemaRoot, properties, PropertyTree.build(projection));
+        for (Map.Entry<PropertyPath, Object> entry : liveObjects.entrySet()) {
+            if (entry.getValue() != UNKNOWN && !dirty.contains(entry.getKey())) {
+                context.register(entry.getKey(), entry.getValue());
+            }
+        }
+        for (SubPath field : fields) {
+            ObjectType<?> objectType = (ObjectType<?>) schemaRoot.get(field.parent).getValueType();
+            objectType.setFieldValue(liveObjects.get(field.parent), field.getName(), context.getObject(field));
+        }
+        context.bindQueued();
+        return true;
+    }
+
+    /**
+     * References are resolved from their target root, which is not projected,
+     * and live targets cannot be located by path. Thus a patch that re-reads
+     * a reference would resolve it to null or to a copy of the target.
+     *
+     * @return true if any re-read property is a reference.
+     */
+    private boolean readsReferences(List<PropertyPath> reread) {
+        for (PropertyPath path : reread) {
+            if (schemaRoot.get(path).isReference()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addAncestors(PropertyPath path, List<PropertyPath> projection) {
+        PropertyPath current = path;
+        while (current instanceof SubPath) {
+            current = ((SubPath) current).parent;
+            if (properties.containsKey(current)) {
+                projection.add(current);
+            }
+        }
+    }
+
+    private static boolean hasAncestorIn(PropertyPath path, Set<PropertyPath> paths) {
+        PropertyPath current = path;
+        while (current instanceof SubPath) {
+            current = ((SubPath) current).parent;
+            if (paths.contains(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the field where changed path is re-read.
+     *
+     * @return false if there is none, i.e. root needs to be re-read.
+     */
+    private boolean plan(PropertyPath changed) {
+        prefixes.add(changed);
+        dirty.add(changed);
+        PropertyPath target = changed;
+        while (target instanceof SubPath) {
+            SubPath subPath = (SubPath) target;
+            PropertyPath parent = subPath.parent;
+            Object parentObject = navigate(parent);
+            if (parentObject != null && parentObject != UNKNOWN) {
+                ValueType valueType = schemaRoot.get(parent).getValueType();
+                if (valueType instanceof ObjectType
+                        && subPath instanceof Property
+                        && ((ObjectType<?>) valueType).hasField(parentObject, subPath.getName())) {
+                    fields.add(subPath);
+                    return true;
+                } else if (valueType instanceof ListType) {
+                    lists.add(parent);
+                } else {
+                    prefixes.add(parent);
+                }
+            } else {
+                prefixes.add(parent);
+            }
+            dirty.add(parent);
+            target = parent;
+        }
+        return false;
+    }
+
+    private Object navigate(PropertyPath path) {
+        if (liveObjects.containsKey(path)) {
+            return liveObjects.get(path);
+        }
+        Object result = UNKNOWN;
+        if (path instanceof SubPath) {
+            SubPath subPath = (SubPath) path;
+            Object parentObject = navigate(subPath.parent);
+            if (parentObject != null && parentObject != UNKNOWN) {
+                ValueType valueType = schemaRoot.get(subPath.parent).getValueType();
+                String name = subPath.getName();
+                if (valueType instanceof ObjectType && subPath instanceof Property) {
+                    ObjectType<?> objectType = (ObjectType<?>) valueType;
+                    if (objectType.hasField(parentObject, name)) {
+                        result = objectType.getFieldValue(parentObject, name);
+                    }
+                } else if (valueType instanceof ListType && subPath instanceof Index) {
+                    List<?> list = (List<?>) parentObject;
+                    int index = Integer.parseInt(name);
+                    if (index < list.size()) {
+                        result = list.get(index);
+                    }
+                }
+            }
+        }
+        liveObjects.put(path, result);
+        return result;
+    }
+}
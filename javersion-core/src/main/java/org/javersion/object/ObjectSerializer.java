@@ -15,6 +15,7 @@
  */
 package org.javersion.object;
 
+import java.util.Collection;
 import java.util.Map;
 
 import org.javersion.path.PropertyPath;
@@ -24,20 +25,56 @@ public class ObjectSerializer<O> {
     private final SchemaRoot schemaRoot;
 
     public ObjectSerializer(Class<O> clazz) {
-        this.schemaRoot = DescribeContext.DEFAULT.describeSchema(clazz);
+        this.schemaRoot = SchemaCache.DEFAULT.get(clazz);
     }
 
     public ObjectSerializer(Class<O> clazz, TypeMappings typeMappings) {
-        this.schemaRoot = new DescribeContext(typeMappings).describeSchema(clazz);
+        this.schemaRoot = SchemaCache.DEFAULT.get(clazz, typeMappings);
     }
 
     public Map<PropertyPath, Object> toPropertyMap(O object) {
         return new WriteContext(schemaRoot, object).getMap();
     }
 
+    /**
+     * Serialize object into sink without collecting a property map.
+     */
+    public void write(O object, PropertySink sink) {
+        new WriteContext(schemaRoot, object, sink).write();
+    }
+
+    /**
+     * Update a previously deserialized object in place to match properties.
+     * Only changed paths, e.g. keys of a changeset, are read. Indexing the
+     * properties costs a pass over them: when patching repeatedly, prefer
+     * {@link ObjectVersionManager#mergeObject(MergeObject, String...)} that
+     * maintains the index incrementally.
+     *
+     * @return object or a new instance if the root itself needs to be replaced.
+     */
+    public O patch(O object, Map<PropertyPath, Object> properties, Collection<PropertyPath> changedPaths) {
+        return patch(object, properties, PropertyIndex.of(properties), changedPaths);
+    }
+
+    O patch(O object, Map<PropertyPath, Object> properties, PropertyIndex index, Collection<PropertyPath> changedPaths) {
+        if (object == null || !new ObjectPatcher(schemaRoot, properties, index, object).patch(changedPaths)) {
+            return fromPropertyMap(properties);
+        }
+        return object;
+    }
+
     @SuppressWarnings("unchecked")
     public O fromPropertyMap(Map<PropertyPath, Object> properties) {
         return (O) new ReadContext(schemaRoot, properties).getObject();
     }
 
+    /**
+     * Deserialize only given subtrees of properties, e.g. a few fields of a
+     * large object. Properties outside of projection are skipped.
+     */
+    @SuppressWarnings("unchecked")
+    public O fromPropertyMap(Map<PropertyPath, Object> properties, Collection<PropertyPath> projection) {
+        return (O) new ReadContext(schemaRoot, properties, projection).getObject();
+    }
+
 }
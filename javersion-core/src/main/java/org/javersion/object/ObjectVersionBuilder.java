@@ -1,13 +1,18 @@
 package org.javersion.object;
 
-import static org.javersion.core.Diff.diff;
+import static com.google.common.base.Objects.equal;
 
 import java.util.Map;
+import java.util.Set;
 
 import org.javersion.core.Merge;
+import org.javersion.core.Revision;
 import org.javersion.core.Version;
+import org.javersion.core.VersionProperty;
 import org.javersion.path.PropertyPath;
 
+import com.google.common.collect.Maps;
+
 public class ObjectVersionBuilder<M> extends Version.Builder<PropertyPath, Object, ObjectVersionBuilder< M>> {
 
     private final ObjectVersionManager<?, M> manager;
@@ -16,9 +21,35 @@ public class ObjectVersionBuilder<M> extends Version.Builder<PropertyPath, Objec
 
     protected M meta;
 
+    private boolean rebase;
+
+    /**
+     * True if revision was generated for this builder instead of supplied by the caller.
+     */
+    final boolean generatedRevision;
+
     public ObjectVersionBuilder(ObjectVersionManager<?, M> manager, Map<PropertyPath, Object> properties) {
         this.manager = manager;
         this.properties = properties;
+        this.generatedRevision = true;
+    }
+
+    public ObjectVersionBuilder(ObjectVersionManager<?, M> manager, Map<PropertyPath, Object> properties, Revision revision) {
+        super(revision);
+        this.manager = manager;
+        this.properties = properties;
+        this.generatedRevision = false;
+    }
+
+    /**
+     * Builder for decoding stored versions. Such a builder is not bound to a
+     * manager: use {@code new ObjectVersion<>(builder)} instead of {@link #build()}.
+     */
+    ObjectVersionBuilder(Revision revision) {
+        super(revision);
+        this.manager = null;
+        this.properties = null;
+        this.generatedRevision = false;
     }
 
     public ObjectVersionBuilder<M> meta(M meta) {
@@ -26,12 +57,85 @@ public class ObjectVersionBuilder<M> extends Version.Builder<PropertyPath, Objec
         return this;
     }
 
+    /**
+     * Optimistic commit: if manager's heads have moved since parents were
+     * merged, rebase the changeset onto the new heads instead of committing a
+     * concurrent version. Falls back to the original parents only if the same
+     * properties were changed to different values in the meantime.
+     */
+    public ObjectVersionBuilder<M> rebase() {
+        this.rebase = true;
+        return this;
+    }
+
+    /**
+     * Commits this version to the manager. The revision of the returned
+     * version differs from this builder's if the changeset was rebased or if
+     * a generated revision was overtaken by a concurrent commit: such a
+     * revision is restamped so that the tip stays the latest commit. A
+     * revision supplied by the caller is never restamped. Always use the
+     * revision of the returned version.
+     */
     @Override
     public ObjectVersion<M> build() {
         Merge<PropertyPath, Object> merge = manager.mergeRevisions(parentRevisions);
-        changeset(diff(merge.getProperties(), properties));
-        ObjectVersion<M> version = new ObjectVersion<>(this);
-        manager.commit(version);
-        return version;
+        changeset(merge.diff(properties));
+        return manager.commit(this, rebase ? merge : null);
+    }
+
+    /**
+     * Rebase changeset computed against base onto head merge of given heads.
+     * Only changed properties are examined. A revision supplied by the caller
+     * is kept, a generated one is replaced.
+     *
+     * @return rebased copy of this builder or null if heads do not descend
+     *         from parents or changes conflict.
+     */
+    ObjectVersionBuilder<M> rebase(Merge<PropertyPath, Object> base, Merge<PropertyPath, Object> head, Set<Revision> heads) {
+        for (Revision parent : parentRevisions) {
+            if (!head.mergedRevisions.contains(parent)) {
+                return null;
+            }
+        }
+        Map<PropertyPath, Object> rebasedChangeset = Maps.newLinkedHashMap();
+        for (Map.Entry<PropertyPath, Object> change : changeset.entrySet()) {
+            PropertyPath path = change.getKey();
+            VersionProperty<Object> baseProperty = base.mergedProperties.get(path);
+            VersionProperty<Object> headProperty = head.mergedProperties.get(path);
+            if (equal(headProperty != null ? headProperty.value : null, change.getValue())) {
+                continue;
+            }
+            if (!sameRevision(baseProperty, headProperty)) {
+                return null;
+            }
+            rebasedChangeset.put(path, change.getValue());
+        }
+        ObjectVersionBuilder<M> builder = generatedRevision ? withNewRevision() : copyTo(new ObjectVersionBuilder<M>(manager, properties, revision));
+        builder.parentRevisions = heads;
+        builder.changeset = rebasedChangeset;
+        return builder;
+    }
+
+    private static boolean sameRevision(VersionProperty<?> baseProperty, VersionProperty<?> headProperty) {
+        if (baseProperty == null || headProperty == null) {
+            return baseProperty == headProperty;
+        }
+        return baseProperty.revision.equals(headProperty.revision);
+    }
+
+    /**
+     * @return copy of this builder with a new revision.
+     */
+    ObjectVersionBuilder<M> withNewRevision() {
+        return copyTo(new ObjectVersionBuilder<M>(manager, properties));
+    }
+
+    private ObjectVersionBuilder<M> copyTo(ObjectVersionBuilder<M> builder) {
+        builder.type = type;
+        builder.branch = branch;
+        builder.parentRevisions = parentRevisions;
+        builder.changeset = changeset;
+        builder.meta = meta;
+        return builder;
     }
 }
\ No newline at end of file
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.object;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+
+import org.javersion.core.Revision;
+import org.javersion.core.VersionType;
+import org.javersion.path.PropertyPath;
+import org.javersion.path.PropertyPath.Index;
+import org.javersion.path.PropertyPath.Property;
+import org.javersion.path.PropertyPath.SubPath;
+import org.javersion.store.AbstractVersionCodec;
+import org.javersion.util.Check;
+
+import com.google.common.io.ByteArrayDataOutput;
+
+/**
+ * Encodes versions produced by {@link ObjectSerializer}: paths segment by
+ * segment and values as tagged scalars. Meta is not encoded by default;
+ * subclasses may override {@link #writeMeta(Object, ByteArrayDataOutput)}
+ * and {@link #readMeta(ByteBuffer)}. Class values are resolved through the
+ * given ClassLoader, by default through the context loader of the decoding
+ * thread.
+ */
+public class ObjectVersionCodec<M> extends AbstractVersionCodec<PropertyPath, Object, ObjectVersion<M>> {
+
+    public static final ObjectVersionCodec<Void> INSTANCE = new ObjectVersionCodec<>();
+
+    private static final byte PROPERTY = 0;
+    private static final byte INDEX = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte INTEGER = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte CHARACTER = 9;
+    private static final byte BIG_INTEGER = 10;
+    private static final byte BIG_DECIMAL = 11;
+    private static final byte CLASS = 12;
+
+    /**
+     * Loader of encoded classes or null to use the context loader of the decoding thread.
+     */
+    private final ClassLoader classLoader;
+
+    public ObjectVersionCodec() {
+        this.classLoader = null;
+    }
+
+    public ObjectVersionCodec(ClassLoader classLoader) {
+        this.classLoader = Check.notNull(classLoader, "classLoader");
+    }
+
+    @Override
+    public void encode(ObjectVersion<M> version, ByteArrayDataOutput out) {
+        super.encode(version, out);
+        writeMeta(version.meta, out);
+    }
+
+    @Override
+    public ObjectVersion<M> decode(ByteBuffer in) {
+        ObjectVersion<M> version = super.decode(in);
+        M meta = readMeta(in);
+        if (meta == null) {
+            return version;
+        }
+        return newVersion(version.revision, version.branch, version.type, version.parentRevisions, version.changeset, meta);
+    }
+
+    @Override
+    protected ObjectVersion<M> newVersion(Revision revision, String branch, VersionType type, Set<Revision> parents, Map<PropertyPath, Object> changeset) {
+        return newVersion(revision, branch, type, parents, changeset, null);
+    }
+
+    private ObjectVersion<M> newVersion(Revision revision, String branch, VersionType type, Set<Revision> parents, Map<PropertyPath, Object> changeset, M meta) {
+        ObjectVersionBuilder<M> builder = new ObjectVersionBuilder<M>(revision)
+                .branch(branch)
+                .type(type)
+                .parents(parents)
+                .changeset(changeset)
+                .meta(meta);
+        return new ObjectVersion<>(builder);
+    }
+
+    /**
+     * @throws IllegalArgumentException if meta is not null.
+     */
+    protected void writeMeta(M meta, ByteArrayDataOutput out) {
+        if (meta != null) {
+            throw new IllegalArgumentException("Unsupported meta: " + meta);
+        }
+    }
+
+    protected M readMeta(ByteBuffer in) {
+        return null;
+    }
+
+    @Override
+    protected void writeKey(PropertyPath key, ByteArrayDataOutput out) {
+        out.writeInt(key.asList().size());
+        for (SubPath path : key) {
+            if (path instanceof Index) {
+                out.writeByte(INDEX);
+                writeString(((Index) path).index, out);
+            } else {
+                out.writeByte(PROPERTY);
+                writeString(((Property) path).name, out);
+            }
+        }
+    }
+
+    @Override
+    protected PropertyPath readKey(ByteBuffer in) {
+        PropertyPath path = PropertyPath.ROOT;
+        int size = in.getInt();
+        for (int i=0; i < size; i++) {
+            byte kind = in.get();
+            String name = readString(in);
+            path = kind == INDEX ? path.index(name) : path.property(name);
+        }
+        return path;
+    }
+
+    @Override
+    protected void writeValue(Object value, ByteArrayDataOutput out) {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString((String) value, out);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHARACTER);
+            out.writeChar((Character) value);
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeBytes(((BigInteger) value).toByteArray(), out);
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            out.writeByte(BIG_DECIMAL);
+            out.writeInt(decimal.scale());
+            writeBytes(decimal.unscaledValue().toByteArray(), out);
+        } else if (value instanceof Class) {
+            out.writeByte(CLASS);
+            writeString(((Class<?>) value).getName(), out);
+        } else {
+            throw new IllegalArgumentException("Unsupported value type: " + value.getClass());
+        }
+    }
+
+    @Override
+    protected Object readValue(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case NULL: return null;
+            case STRING: return readString(in);
+            case BOOLEAN: return in.get() != 0;
+            case BYTE: return in.get();
+            case SHORT: return in.getShort();
+            case INTEGER: return in.getInt();
+            case LONG: return in.getLong();
+            case FLOAT: return in.getFloat();
+            case DOUBLE: return in.getDouble();
+            case CHARACTER: return in.getChar();
+            case BIG_INTEGER: return new BigInteger(readBytes(in));
+            case BIG_DECIMAL: {
+                int scale = in.getInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            }
+            case CLASS: return readClass(readString(in));
+            default: throw new IllegalArgumentException("Unknown value type: " + type);
+        }
+    }
+
+    private Class<?> readClass(String name) {
+        ClassLoader loader = classLoader;
+        if (loader == null) {
+            loader = Thread.currentThread().getContextClassLoader();
+        }
+        if (loader == null) {
+            loader = ObjectVersionCodec.class.getClassLoader();
+        }
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static void writeBytes(byte[] bytes, ByteArrayDataOutput out) {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return bytes;
+    }
+
+}
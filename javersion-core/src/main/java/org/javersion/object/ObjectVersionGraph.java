@@ -17,6 +17,8 @@ package org.javersion.object;
 
 import org.javersion.core.AbstractVersionGraph;
 import org.javersion.core.AbstractVersionGraphBuilder;
+import org.javersion.core.Checkpoint;
+import org.javersion.core.VersionLog;
 import org.javersion.path.PropertyPath;
 import org.javersion.object.ObjectVersionGraph.Builder;
 
@@ -40,6 +42,14 @@ public final class ObjectVersionGraph<M> extends AbstractVersionGraph<PropertyPa
         return builder.build();
     }
 
+    public static <M> ObjectVersionGraph<M> init(VersionLog<PropertyPath, Object, ObjectVersion<M>> log) {
+        return new Builder<M>(log, null).build();
+    }
+
+    public static <M> ObjectVersionGraph<M> init(Checkpoint<PropertyPath, Object, ObjectVersion<M>> checkpoint, VersionLog<PropertyPath, Object, ObjectVersion<M>> log) {
+        return new Builder<M>(log, checkpoint).build();
+    }
+
     private ObjectVersionGraph() {
         super();
     }
@@ -58,6 +68,10 @@ public final class ObjectVersionGraph<M> extends AbstractVersionGraph<PropertyPa
         protected Builder() {
             super();
         }
+
+        protected Builder(VersionLog<PropertyPath, Object, ObjectVersion<M>> log, Checkpoint<PropertyPath, Object, ObjectVersion<M>> checkpoint) {
+            super(log, checkpoint);
+        }
         
         protected Builder(ObjectVersionGraph<M> parentGraph) {
             super(parentGraph);
@@ -1,23 +1,49 @@
 package org.javersion.object;
 
-import static com.google.common.collect.ImmutableSet.of;
 import static java.util.Arrays.asList;
+import static org.javersion.core.Version.DEFAULT_BRANCH;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.javersion.core.Diff;
 import org.javersion.core.Merge;
+import org.javersion.core.MergeCache;
 import org.javersion.core.Revision;
+import org.javersion.core.VersionLog;
+import org.javersion.core.VersionNode;
 import org.javersion.path.PropertyPath;
 
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Thread safe manager of an object's versions. Current graph and heads are
+ * published as an immutable snapshot: readers never block and commits are
+ * applied with compare-and-set, retrying against the latest graph if another
+ * thread committed in between.
+ */
 public class ObjectVersionManager<O, M> {
 
-    private ObjectVersionGraph<M> versionGraph;
+    private static final class State<M> {
+
+        final ObjectVersionGraph<M> versionGraph;
+
+        final Set<Revision> heads;
+
+        State(ObjectVersionGraph<M> versionGraph, Set<Revision> heads) {
+            this.versionGraph = versionGraph;
+            this.heads = heads;
+        }
+    }
 
-    private Set<Revision> heads = of();
+    private final AtomicReference<State<M>> state = new AtomicReference<>();
 
     private final ObjectSerializer<O> serializer;
 
+    private volatile MergeCache<PropertyPath, Object> mergeCache;
+
     public ObjectVersionManager(Class<O> clazz) {
         this(new ObjectSerializer<>(clazz));
     }
@@ -26,19 +52,60 @@ public class ObjectVersionManager<O, M> {
         this.serializer = serializer;
     }
 
-    public ObjectVersionManager<O, M> init() {
-        this.versionGraph = ObjectVersionGraph.init();
+    /**
+     * Cache merges of unchanged heads. Call before init.
+     */
+    public ObjectVersionManager<O, M> mergeCache(MergeCache<PropertyPath, Object> mergeCache) {
+        this.mergeCache = mergeCache;
         return this;
     }
 
+    public ObjectVersionManager<O, M> init() {
+        return init(ObjectVersionGraph.<M>init());
+    }
+
+    /**
+     * Initialize with existing versions. New versions will be based on the
+     * heads of the default branch.
+     */
     public ObjectVersionManager<O, M> init(Iterable<ObjectVersion<M>> versions) {
-        this.versionGraph = ObjectVersionGraph.init(versions);
+        return init(ObjectVersionGraph.init(versions));
+    }
+
+    /**
+     * Initialize with given graph. If the graph is bound to a log, new
+     * versions are appended to it.
+     */
+    public ObjectVersionManager<O, M> init(ObjectVersionGraph<M> versionGraph) {
+        state.set(new State<>(versionGraph.withMergeCache(mergeCache), heads(versionGraph, DEFAULT_BRANCH)));
         return this;
     }
 
+    /**
+     * @return latest published graph. Never blocks.
+     */
+    public ObjectVersionGraph<M> getVersionGraph() {
+        return state.get().versionGraph;
+    }
+
+    public Set<Revision> getHeads() {
+        return state.get().heads;
+    }
+
     public ObjectVersionBuilder<M> buildVersion(O object) {
         ObjectVersionBuilder<M> builder = new ObjectVersionBuilder<M>(this, serializer.toPropertyMap(object));
-        builder.parents(heads);
+        builder.parents(getHeads());
+        return builder;
+    }
+
+    /**
+     * Build a version with given revision. Such a version is committed with
+     * its revision as is even if later revisions have been committed.
+     * Object is always serialized fully.
+     */
+    public ObjectVersionBuilder<M> buildVersion(O object, Revision revision) {
+        ObjectVersionBuilder<M> builder = new ObjectVersionBuilder<M>(this, serializer.toPropertyMap(object), revision);
+        builder.parents(getHeads());
         return builder;
     }
 
@@ -47,9 +114,29 @@ public class ObjectVersionManager<O, M> {
     }
 
     public MergeObject<O> mergeObject(Collection<String> branches) {
-        Merge<PropertyPath, Object> merge = versionGraph.mergeBranches(branches);
+        Merge<PropertyPath, Object> merge = getVersionGraph().mergeBranches(branches);
         MergeObject<O> mergeObject = new MergeObject<>(toObject(merge), merge);
-        heads = merge.getMergeHeads();
+        setHeads(merge.getMergeHeads());
+        return mergeObject;
+    }
+
+    public MergeObject<O> mergeObject(MergeObject<O> previous, String... branches) {
+        return mergeObject(previous, asList(branches));
+    }
+
+    /**
+     * Merge branches into a previously merged object, updating it in place
+     * instead of reading a new object. Only changed paths and their
+     * subtrees are visited.
+     */
+    public MergeObject<O> mergeObject(MergeObject<O> previous, Collection<String> branches) {
+        Merge<PropertyPath, Object> merge = getVersionGraph().mergeBranches(branches);
+        Set<PropertyPath> changedPaths = Diff.diff(previous.merge.mergedProperties, merge.mergedProperties).keySet();
+        Map<PropertyPath, Object> properties = merge.getProperties();
+        PropertyIndex index = previous.getIndex().update(changedPaths, properties);
+        O object = serializer.patch(previous.object, properties, index, changedPaths);
+        MergeObject<O> mergeObject = new MergeObject<>(object, merge, index);
+        setHeads(merge.getMergeHeads());
         return mergeObject;
     }
 
@@ -58,12 +145,88 @@ public class ObjectVersionManager<O, M> {
     }
 
     Merge<PropertyPath, Object> mergeRevisions(Iterable<Revision> revisions) {
-        return versionGraph.mergeRevisions(revisions);
+        return getVersionGraph().mergeRevisions(revisions);
+    }
+
+    private void setHeads(Set<Revision> heads) {
+        State<M> current;
+        State<M> next;
+        do {
+            current = state.get();
+            next = new State<>(current.versionGraph, heads);
+        } while (!state.compareAndSet(current, next));
+    }
+
+    /**
+     * Applies version to the latest graph. As version's parents are fixed, a
+     * commit that lost the race is simply reapplied to the winner's graph.
+     * Graph accepts versions in any revision order, but its tip is the
+     * greatest revision, so a generated revision that has been overtaken is
+     * restamped to keep the tip at the latest commit. Revisions supplied by
+     * the caller are committed as is.
+     * <p>
+     * A graph bound to a log appends on commit, so such commits are
+     * serialized on the log and the graph is committed only once: retries
+     * only republish it if heads were changed concurrently.
+     *
+     * Published heads are those of the committed version's branch in the new
+     * graph, so a version committed next to a concurrent one keeps both heads.
+     *
+     * @param base merge of builder's parents if the changeset should be
+     *        rebased onto moved heads, otherwise null.
+     * @return committed version. Its revision differs from builder's if it
+     *         was rebased or its generated revision was restamped.
+     */
+    ObjectVersion<M> commit(ObjectVersionBuilder<M> builder, Merge<PropertyPath, Object> base) {
+        VersionLog<PropertyPath, Object, ObjectVersion<M>> log = getVersionGraph().getLog();
+        if (log == null) {
+            return doCommit(builder, base);
+        }
+        synchronized (log) {
+            return doCommit(builder, base);
+        }
+    }
+
+    private ObjectVersion<M> doCommit(ObjectVersionBuilder<M> builder, Merge<PropertyPath, Object> base) {
+        final ObjectVersion<M> original = new ObjectVersion<>(builder);
+        ObjectVersionBuilder<M> committed = builder;
+        ObjectVersion<M> version = original;
+        ObjectVersionGraph<M> versionGraph = null;
+        ObjectVersionGraph<M> nextGraph = null;
+        State<M> current;
+        State<M> next;
+        do {
+            current = state.get();
+            if (current.versionGraph != versionGraph) {
+                versionGraph = current.versionGraph;
+                if (base != null && !current.heads.equals(version.parentRevisions)) {
+                    ObjectVersionBuilder<M> rebased = builder.rebase(base, versionGraph.mergeRevisions(current.heads), current.heads);
+                    if (rebased != null) {
+                        committed = rebased;
+                        version = new ObjectVersion<>(rebased);
+                    } else {
+                        committed = builder;
+                        version = original;
+                    }
+                }
+                if (committed.generatedRevision && !versionGraph.isEmpty()
+                        && versionGraph.getTip().getRevision().compareTo(version.revision) >= 0) {
+                    committed = committed.withNewRevision();
+                    version = new ObjectVersion<>(committed);
+                }
+                nextGraph = versionGraph.commit(version);
+            }
+            next = new State<>(nextGraph, heads(nextGraph, version.branch));
+        } while (!state.compareAndSet(current, next));
+        return version;
     }
 
-    void commit(ObjectVersion<M> version) {
-        versionGraph = versionGraph.commit(version);
-        heads = of(version.revision);
+    private static Set<Revision> heads(ObjectVersionGraph<?> versionGraph, String branch) {
+        ImmutableSet.Builder<Revision> heads = ImmutableSet.builder();
+        for (VersionNode<PropertyPath, Object, ? extends ObjectVersion<?>> head : versionGraph.getHeads(branch)) {
+            heads.add(head.getRevision());
+        }
+        return heads.build();
     }
 
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.object;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Lock;
+
+import org.javersion.core.VersionLog;
+import org.javersion.path.PropertyPath;
+import org.javersion.util.Check;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Versions of many independent entities of the same type. Each entity has
+ * its own version log and a lazily loaded {@link ObjectVersionManager}
+ * sharing this repository's serializer. Loaded managers are evicted when
+ * the repository grows beyond its maximum size and reloaded from their
+ * log on demand.
+ * <p>
+ * Logs are owned by the caller: the repository never closes them, not even
+ * when an entity is evicted, as the evicted manager may still be in use.
+ * An evicted entity is reloaded by asking its log again, so the logs
+ * function should return the open log of the entity (e.g. from a cache of
+ * open logs) rather than open a new one on every call. Closeable logs, like
+ * {@link org.javersion.store.FileVersionLog}, are to be closed by the caller
+ * once the repository is no longer used.
+ * <p>
+ * Reads never lock. Commits of the same entity are serialized with striped
+ * locks so that the log is appended in commit order.
+ */
+public class ObjectVersionRepository<I, O, M> {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ObjectSerializer<O> serializer;
+
+    private final Function<? super I, ? extends VersionLog<PropertyPath, Object, ObjectVersion<M>>> logs;
+
+    private final Striped<Lock> locks;
+
+    private final LoadingCache<I, ObjectVersionManager<O, M>> entities;
+
+    public ObjectVersionRepository(Class<O> clazz, Function<? super I, ? extends VersionLog<PropertyPath, Object, ObjectVersion<M>>> logs, long maximumSize) {
+        this(new ObjectSerializer<>(clazz), logs, maximumSize);
+    }
+
+    /**
+     * @param logs version log of an entity by id. Called whenever the entity
+     *        is (re)loaded. Returned logs are not closed by this repository.
+     * @param maximumSize maximum number of entities kept in memory.
+     */
+    public ObjectVersionRepository(ObjectSerializer<O> serializer, Function<? super I, ? extends VersionLog<PropertyPath, Object, ObjectVersion<M>>> logs, long maximumSize) {
+        this.serializer = Check.notNull(serializer, "serializer");
+        this.logs = Check.notNull(logs, "logs");
+        this.locks = Striped.lazyWeakLock(DEFAULT_STRIPES);
+        this.entities = CacheBuilder.newBuilder().maximumSize(maximumSize).build(new CacheLoader<I, ObjectVersionManager<O, M>>() {
+            @Override
+            public ObjectVersionManager<O, M> load(I id) {
+                return loadEntity(id);
+            }
+        });
+    }
+
+    /**
+     * Manager's graph is bound to the log, so commits are appended to it
+     * before they are published.
+     */
+    private ObjectVersionManager<O, M> loadEntity(I id) {
+        VersionLog<PropertyPath, Object, ObjectVersion<M>> log = Check.notNull(logs.apply(id), "log");
+        return new ObjectVersionManager<O, M>(serializer).init(ObjectVersionGraph.init(log));
+    }
+
+    /**
+     * Loaded entity or load it while holding entity's lock, so that log is
+     * never read while it's being appended.
+     */
+    private ObjectVersionManager<O, M> entity(I id) {
+        Check.notNull(id, "id");
+        ObjectVersionManager<O, M> entity = entities.getIfPresent(id);
+        if (entity != null) {
+            return entity;
+        }
+        Lock lock = locks.get(id);
+        lock.lock();
+        try {
+            return entities.get(id);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ObjectVersionGraph<M> getVersionGraph(I id) {
+        return entity(id).getVersionGraph();
+    }
+
+    public MergeObject<O> mergeObject(I id, String... branches) {
+        return entity(id).mergeObject(branches);
+    }
+
+    public ObjectVersion<M> commit(I id, O object) {
+        return commit(id, object, null);
+    }
+
+    public ObjectVersion<M> commit(I id, O object, M meta) {
+        Lock lock = locks.get(id);
+        lock.lock();
+        try {
+            return doCommit(id, entity(id).buildVersion(object).meta(meta));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits a new version of each entity. Locks of all entities are
+     * acquired up front in a consistent order. All objects are serialized
+     * before anything is committed, so invalid objects fail the whole bulk.
+     * Logs of different entities cannot be appended atomically though: if a
+     * commit fails, versions committed before it remain and are reported
+     * with the failure.
+     *
+     * @throws PartialCommitException if a commit fails after others have succeeded.
+     */
+    public Map<I, ObjectVersion<M>> commit(Map<I, O> objects) {
+        Iterable<Lock> bulkLocks = locks.bulkGet(objects.keySet());
+        for (Lock lock : bulkLocks) {
+            lock.lock();
+        }
+        try {
+            Map<I, ObjectVersionBuilder<M>> builders = Maps.newLinkedHashMap();
+            for (Map.Entry<I, O> entry : objects.entrySet()) {
+                builders.put(entry.getKey(), entity(entry.getKey()).buildVersion(entry.getValue()));
+            }
+            ImmutableMap.Builder<I, ObjectVersion<M>> versions = ImmutableMap.builder();
+            for (Map.Entry<I, ObjectVersionBuilder<M>> entry : builders.entrySet()) {
+                try {
+                    versions.put(entry.getKey(), doCommit(entry.getKey(), entry.getValue()));
+                } catch (RuntimeException e) {
+                    Map<I, ObjectVersion<M>> committed = versions.build();
+                    if (committed.isEmpty()) {
+                        throw e;
+                    }
+                    throw new PartialCommitException(committed, entry.getKey(), e);
+                }
+            }
+            return versions.build();
+        } finally {
+            for (Lock lock : Lists.reverse(Lists.newArrayList(bulkLocks))) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * If commit fails, e.g. appending to the log fails, the entity is evicted
+     * so that its state is reloaded from the log.
+     */
+    private ObjectVersion<M> doCommit(I id, ObjectVersionBuilder<M> builder) {
+        try {
+            return builder.build();
+        } catch (RuntimeException | Error e) {
+            entities.invalidate(id);
+            throw e;
+        }
+    }
+
+    /**
+     * Drop loaded entity. It will be reloaded from its log on next access.
+     * The log is not closed.
+     */
+    public void evict(I id) {
+        entities.invalidate(id);
+    }
+
+    /**
+     * @return number of entities currently loaded.
+     */
+    public long size() {
+        return entities.size();
+    }
+
+}
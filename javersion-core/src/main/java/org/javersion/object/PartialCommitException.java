@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.object;
+
+import java.util.Map;
+
+/**
+ * Bulk commit failed after some of the entities were already committed.
+ * Those versions remain committed.
+ */
+public class PartialCommitException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Versions committed before the failure by entity id.
+     */
+    public final Map<?, ? extends ObjectVersion<?>> committed;
+
+    /**
+     * Id of the entity whose commit failed.
+     */
+    public final Object failedId;
+
+    public PartialCommitException(Map<?, ? extends ObjectVersion<?>> committed, Object failedId, Throwable cause) {
+        super(String.format("Commit of %s failed after %s were committed", failedId, committed.keySet()), cause);
+        this.committed = committed;
+        this.failedId = failedId;
+    }
+
+}
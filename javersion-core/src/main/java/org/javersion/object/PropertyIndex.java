@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.object;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.javersion.path.PropertyPath;
+import org.javersion.path.PropertyPath.SubPath;
+import org.javersion.util.MutableHashMap;
+import org.javersion.util.PersistentHashMap;
+import org.javersion.util.PersistentHashSet;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Persistent index of property paths by their parent, so that a subtree of
+ * properties can be found without scanning all of them. The index is closed
+ * over ancestors: a path is indexed while it or any of its descendants is a
+ * property. Updating the index costs in proportion to changed paths.
+ */
+final class PropertyIndex {
+
+    private static final PersistentHashSet<SubPath> NO_CHILDREN = new PersistentHashSet<>();
+
+    static final PropertyIndex EMPTY = new PropertyIndex(PersistentHashMap.<PropertyPath, PersistentHashSet<SubPath>>empty());
+
+    static PropertyIndex of(Map<PropertyPath, ?> properties) {
+        return EMPTY.update(properties.keySet(), properties);
+    }
+
+    private final PersistentHashMap<PropertyPath, PersistentHashSet<SubPath>> children;
+
+    private PropertyIndex(PersistentHashMap<PropertyPath, PersistentHashSet<SubPath>> children) {
+        this.children = children;
+    }
+
+    /**
+     * @param changedPaths paths that were added, updated or removed.
+     * @param properties properties after the changes.
+     */
+    PropertyIndex update(Collection<PropertyPath> changedPaths, Map<PropertyPath, ?> properties) {
+        MutableHashMap<PropertyPath, PersistentHashSet<SubPath>> index = children.toMutableMap();
+        List<PropertyPath> removed = Lists.newArrayList();
+        for (PropertyPath path : changedPaths) {
+            if (properties.containsKey(path)) {
+                link(path, index);
+            } else {
+                removed.add(path);
+            }
+        }
+        for (PropertyPath path : removed) {
+            unlink(path, properties, index);
+        }
+        return new PropertyIndex(index.toPersistentMap());
+    }
+
+    boolean contains(PropertyPath path) {
+        if (path instanceof SubPath) {
+            SubPath subPath = (SubPath) path;
+            return getChildren(subPath.parent).contains(subPath);
+        }
+        return !children.isEmpty();
+    }
+
+    PersistentHashSet<SubPath> getChildren(PropertyPath path) {
+        PersistentHashSet<SubPath> result = children.get(path);
+        return result != null ? result : NO_CHILDREN;
+    }
+
+    /**
+     * Adds path and all of its indexed descendants into result.
+     */
+    void addSubtree(PropertyPath path, Collection<? super PropertyPath> result) {
+        result.add(path);
+        for (SubPath child : getChildren(path)) {
+            addSubtree(child, result);
+        }
+    }
+
+    private static void link(PropertyPath path, Map<PropertyPath, PersistentHashSet<SubPath>> index) {
+        PropertyPath current = path;
+        while (current instanceof SubPath) {
+            SubPath subPath = (SubPath) current;
+            PersistentHashSet<SubPath> siblings = childrenOf(subPath.parent, index);
+            if (siblings.contains(subPath)) {
+                return;
+            }
+            index.put(subPath.parent, siblings.conj(subPath));
+            current = subPath.parent;
+        }
+    }
+
+    private static void unlink(PropertyPath path, Map<PropertyPath, ?> properties, Map<PropertyPath, PersistentHashSet<SubPath>> index) {
+        PropertyPath current = path;
+        while (current instanceof SubPath && !properties.containsKey(current) && !index.containsKey(current)) {
+            SubPath subPath = (SubPath) current;
+            PersistentHashSet<SubPath> siblings = childrenOf(subPath.parent, index);
+            if (!siblings.contains(subPath)) {
+                return;
+            }
+            siblings = siblings.disjoin(subPath);
+            if (siblings.isEmpty()) {
+                index.remove(subPath.parent);
+            } else {
+                index.put(subPath.parent, siblings);
+            }
+            current = subPath.parent;
+        }
+    }
+
+    private static PersistentHashSet<SubPath> childrenOf(PropertyPath path, Map<PropertyPath, PersistentHashSet<SubPath>> index) {
+        PersistentHashSet<SubPath> result = index.get(path);
+        return result != null ? result : NO_CHILDREN;
+    }
+}
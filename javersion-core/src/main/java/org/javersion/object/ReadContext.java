@@ -16,13 +16,20 @@
 package org.javersion.object;
 
 import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.javersion.path.PropertyPath.SubPath;
 import org.javersion.path.PropertyPath;
 import org.javersion.path.PropertyTree;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 public class ReadContext {
 
@@ -44,6 +51,56 @@ public class ReadContext {
         this.rootNode = PropertyTree.build(properties.keySet());
     }
 
+    /**
+     * Projection: only subtrees of given prefixes (and their ancestors) are
+     * materialized. Other properties are skipped, i.e. fields keep their
+     * initial values. References are resolved only if their targets are
+     * within the projection.
+     */
+    protected ReadContext(SchemaRoot schemaRoot, Map<PropertyPath, Object> properties, Collection<PropertyPath> prefixes) {
+        this(schemaRoot, properties, PropertyTree.build(project(properties.keySet(), prefixes)));
+    }
+
+    /**
+     * @param rootNode tree of properties to read, null if none.
+     */
+    ReadContext(SchemaRoot schemaRoot, Map<PropertyPath, Object> properties, PropertyTree rootNode) {
+        this.properties = properties;
+        this.schemaRoot = schemaRoot;
+        this.rootNode = rootNode;
+    }
+
+    private static List<PropertyPath> project(Set<PropertyPath> paths, Collection<PropertyPath> prefixes) {
+        Set<PropertyPath> prefixSet = ImmutableSet.copyOf(prefixes);
+        Set<PropertyPath> ancestors = Sets.newHashSet();
+        for (PropertyPath prefix : prefixSet) {
+            PropertyPath path = prefix;
+            while (path instanceof SubPath) {
+                path = ((SubPath) path).parent;
+                ancestors.add(path);
+            }
+        }
+        List<PropertyPath> result = Lists.newArrayList();
+        for (PropertyPath path : paths) {
+            if (ancestors.contains(path) || isWithin(path, prefixSet)) {
+                result.add(path);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isWithin(PropertyPath path, Set<PropertyPath> prefixes) {
+        PropertyPath current = path;
+        while (!prefixes.contains(current)) {
+            if (current instanceof SubPath) {
+                current = ((SubPath) current).parent;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public Object getObject() {
         if (rootNode == null) {
             return null;
@@ -54,12 +111,7 @@ public class ReadContext {
             objects.put(rootNode.path, result);
             if (result != null && rootNode.hasChildren()) {
                 schemaRoot.bind(rootNode, result, this);
-                while (queueIsNotEmpty()) {
-                    PropertyTree propertyTree = nextQueueItem();
-                    Schema schema = schemaRoot.get(propertyTree.path);
-                    Object target = objects.get(propertyTree.path);
-                    schema.bind(propertyTree, target, this);
-                }
+                bindQueued();
             }
             return result;
         } catch (Exception e) {
@@ -67,6 +119,29 @@ public class ReadContext {
         }
     }
 
+    /**
+     * Use an existing object for path instead of instantiating it.
+     */
+    void register(PropertyPath path, Object object) {
+        objects.put(path, object);
+    }
+
+    /**
+     * Bind objects instantiated since last bind.
+     */
+    void bindQueued() {
+        try {
+            while (queueIsNotEmpty()) {
+                PropertyTree propertyTree = nextQueueItem();
+                Schema schema = schemaRoot.get(propertyTree.path);
+                Object target = objects.get(propertyTree.path);
+                schema.bind(propertyTree, target, this);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private boolean queueIsNotEmpty() {
         return !(hightPriorityQueue.isEmpty() && lowPriorityQueue.isEmpty());
     }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.object;
+
+import java.util.concurrent.ExecutionException;
+
+import org.javersion.util.Check;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Thread safe cache of described schemas by root class and TypeMappings
+ * (both by identity). Concurrent requests for a missing schema wait for a
+ * single describe. Schemas are softly referenced, so that they and their
+ * classes can be collected under memory pressure.
+ */
+public final class SchemaCache {
+
+    public static final SchemaCache DEFAULT = new SchemaCache();
+
+    private static final class Key {
+
+        final Class<?> rootClass;
+
+        final TypeMappings typeMappings;
+
+        Key(Class<?> rootClass, TypeMappings typeMappings) {
+            this.rootClass = Check.notNull(rootClass, "rootClass");
+            this.typeMappings = Check.notNull(typeMappings, "typeMappings");
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(rootClass) + System.identityHashCode(typeMappings);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return this.rootClass == other.rootClass && this.typeMappings == other.typeMappings;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    private final LoadingCache<Key, SchemaRoot> schemas = CacheBuilder.newBuilder().softValues().build(new CacheLoader<Key, SchemaRoot>() {
+        @Override
+        public SchemaRoot load(Key key) {
+            return new DescribeContext(key.typeMappings).describeSchema(key.rootClass);
+        }
+    });
+
+    public SchemaCache() {}
+
+    public SchemaRoot get(Class<?> rootClass) {
+        return get(rootClass, TypeMappings.DEFAULT);
+    }
+
+    public SchemaRoot get(Class<?> rootClass, TypeMappings typeMappings) {
+        try {
+            return schemas.get(new Key(rootClass, typeMappings));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Drop schemas of given root class, e.g. after it's been redefined.
+     */
+    public void invalidate(Class<?> rootClass) {
+        for (Key key : schemas.asMap().keySet()) {
+            if (key.rootClass == rootClass) {
+                schemas.invalidate(key);
+            }
+        }
+    }
+
+    public void invalidate(Class<?> rootClass, TypeMappings typeMappings) {
+        schemas.invalidate(new Key(rootClass, typeMappings));
+    }
+
+    public void invalidateAll() {
+        schemas.invalidateAll();
+    }
+
+}
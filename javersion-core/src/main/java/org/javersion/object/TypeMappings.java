@@ -18,9 +18,12 @@ package org.javersion.object;
 import static com.google.common.base.Strings.isNullOrEmpty;
 
 import java.math.BigDecimal;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.math.BigInteger;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.javersion.object.mapping.*;
@@ -30,9 +33,13 @@ import org.javersion.reflect.TypeDescriptors;
 import org.javersion.util.Check;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 
 public class TypeMappings {
 
@@ -85,23 +92,140 @@ public class TypeMappings {
                     CHAR
                     );
 
+    /**
+     * ClassTypeMappings whose applies matches exactly their raw types.
+     */
+    private static final Set<Class<?>> EXACT_MAPPINGS = ImmutableSet.<Class<?>>of(
+            SimpleTypeMapping.class,
+            PrimitiveTypeMapping.class,
+            StringTypeMapping.class,
+            ObjectTypeMapping.class,
+            ListTypeMapping.class,
+            SetTypeMapping.class,
+            MapTypeMapping.class,
+            CollectionTypeMapping.class);
+
     public static final TypeMappings DEFAULT = new TypeMappings(DEFAULT_MAPPINGS);
 
+    private static final int[] NO_POSITIONS = new int[0];
+
     private final List<TypeMapping> types;
 
+    /**
+     * Positions of exact ClassTypeMappings by raw type.
+     */
+    private final Map<Class<?>, int[]> classIndex;
+
+    /**
+     * Positions of mappings that need to be tried one by one.
+     */
+    private final int[] predicates;
+
     public TypeMappings(Iterable<TypeMapping> types) {
         this.types = ImmutableList.copyOf(types);
+
+        Map<Class<?>, List<Integer>> classPositions = Maps.newHashMap();
+        List<Integer> predicatePositions = Lists.newArrayList();
+        for (int i=0; i < this.types.size(); i++) {
+            TypeMapping typeMapping = this.types.get(i);
+            if (isExact(typeMapping)) {
+                for (Class<?> rawType : ((ClassTypeMapping) typeMapping).getRawTypes()) {
+                    List<Integer> positions = classPositions.get(rawType);
+                    if (positions == null) {
+                        positions = Lists.newArrayList();
+                        classPositions.put(rawType, positions);
+                    }
+                    positions.add(i);
+                }
+            } else {
+                predicatePositions.add(i);
+            }
+        }
+        ImmutableMap.Builder<Class<?>, int[]> classIndex = ImmutableMap.builder();
+        for (Map.Entry<Class<?>, List<Integer>> entry : classPositions.entrySet()) {
+            classIndex.put(entry.getKey(), Ints.toArray(entry.getValue()));
+        }
+        this.classIndex = classIndex.build();
+        this.predicates = Ints.toArray(predicatePositions);
+    }
+
+    /**
+     * A ClassTypeMapping is indexed by raw type only if its applies is known
+     * to match exactly those types, i.e. it's declared by a built-in mapping or
+     * final. Subclasses may override applies, e.g. to match subtypes.
+     */
+    private static boolean isExact(TypeMapping typeMapping) {
+        if (!(typeMapping instanceof ClassTypeMapping)) {
+            return false;
+        }
+        try {
+            Method applies = typeMapping.getClass().getMethod("applies", PropertyPath.class, LocalTypeDescriptor.class);
+            return EXACT_MAPPINGS.contains(applies.getDeclaringClass())
+                    || Modifier.isFinal(applies.getModifiers())
+                    || Modifier.isFinal(applies.getDeclaringClass().getModifiers());
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public TypeMapping getTypeMapping(PropertyPath path, LocalTypeDescriptor localTypeDescriptor) {
-        for (TypeMapping valueType : types) {
-            if (valueType.applies(path, localTypeDescriptor)) {
-                return valueType;
+        return getTypeMapping(path, localTypeDescriptor, findCandidates(localTypeDescriptor));
+    }
+
+    /**
+     * @param candidates memo of mappings that may apply to a type, scoped to
+     *        a DescribeContext so that types are not held beyond describe.
+     */
+    TypeMapping getTypeMapping(PropertyPath path, LocalTypeDescriptor localTypeDescriptor, Map<LocalTypeDescriptor, TypeMapping[]> candidates) {
+        TypeMapping[] typeMappings = candidates.get(localTypeDescriptor);
+        if (typeMappings == null) {
+            typeMappings = findCandidates(localTypeDescriptor);
+            candidates.put(localTypeDescriptor, typeMappings);
+        }
+        return getTypeMapping(path, localTypeDescriptor, typeMappings);
+    }
+
+    private static TypeMapping getTypeMapping(PropertyPath path, LocalTypeDescriptor localTypeDescriptor, TypeMapping[] typeMappings) {
+        for (TypeMapping typeMapping : typeMappings) {
+            if (typeMapping.applies(path, localTypeDescriptor)) {
+                return typeMapping;
             }
         }
         throw new IllegalArgumentException("ValueType not found for " + localTypeDescriptor);
     }
 
+    /**
+     * Mappings that may apply to a type in order: path dependent mappings
+     * possibly followed by the first StaticTypeMapping that applies.
+     * <p>
+     * Merges indexed and predicate mappings in registration order. Static
+     * mappings that don't apply are dropped, as they never will.
+     */
+    private TypeMapping[] findCandidates(LocalTypeDescriptor localTypeDescriptor) {
+        int[] indexed = classIndex.get(localTypeDescriptor.typeDescriptor.getRawType());
+        if (indexed == null) {
+            indexed = NO_POSITIONS;
+        }
+        List<TypeMapping> result = Lists.newArrayList();
+        int i = 0, j = 0;
+        while (i < indexed.length || j < predicates.length) {
+            int position;
+            if (j == predicates.length || (i < indexed.length && indexed[i] < predicates[j])) {
+                position = indexed[i++];
+            } else {
+                position = predicates[j++];
+            }
+            TypeMapping typeMapping = types.get(position);
+            if (!(typeMapping instanceof StaticTypeMapping)) {
+                result.add(typeMapping);
+            } else if (typeMapping.applies(null, localTypeDescriptor)) {
+                result.add(typeMapping);
+                break;
+            }
+        }
+        return result.toArray(new TypeMapping[result.size()]);
+    }
+
     public static class Builder {
 
         private final List<TypeMapping> defaultMappings;
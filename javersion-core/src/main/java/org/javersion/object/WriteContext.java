@@ -22,57 +22,157 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.javersion.path.PropertyPath;
+import org.javersion.path.PropertyPath.Index;
+import org.javersion.path.PropertyPath.SubPath;
+import org.javersion.util.Check;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 public class WriteContext {
 
+    private static final class Item {
+        final PropertyPath path;
+        final Object value;
+        final Schema schema;
+        Item(PropertyPath path, Object value, Schema schema) {
+            this.path = path;
+            this.value = value;
+            this.schema = schema;
+        }
+    }
+
     private final Object root;
 
     private final SchemaRoot schemaRoot;
 
-    private final Deque<QueueItem<PropertyPath, Object>> queue = new ArrayDeque<>();
+    private final Deque<Item> queue = new ArrayDeque<>();
 
+    /**
+     * Every serialized composite (non-reference) object. Needed to detect
+     * illegal multiple references to the same object, so retained state is
+     * proportional to the number of composites of the document.
+     */
     private final IdentityHashMap<Object, PropertyPath> objects = Maps.newIdentityHashMap();
 
-    private final Map<PropertyPath, Object> properties = Maps.newLinkedHashMap();
+    /**
+     * Collected properties or null if streaming into a sink.
+     */
+    private final Map<PropertyPath, Object> properties;
+
+    private final PropertySink sink;
+
+    /**
+     * Paths queued by the value being serialized. Paths of owned values are
+     * unique by construction, so only siblings need to be checked. Siblings
+     * with equal paths, e.g. map keys with equal string forms, are rejected
+     * instead of silently dropping all but the first.
+     */
+    private final Set<PropertyPath> queuedPaths = Sets.newHashSet();
+
+    /**
+     * Reference targets that may be reached more than once.
+     */
+    private final Set<PropertyPath> sharedPaths = Sets.newHashSet();
+
+    /**
+     * Path and schema of the value being serialized. Schema of a sub path is
+     * resolved with one lookup from it's parent's schema instead of normalizing
+     * and walking the whole path from the root.
+     */
+    private PropertyPath currentPath;
+
+    private Schema currentSchema;
 
     protected WriteContext(SchemaRoot schemaRoot, Object root) {
         this.root = root;
         this.schemaRoot = schemaRoot;
+        this.properties = Maps.newLinkedHashMap();
+        this.sink = new PropertySink() {
+            @Override
+            public void put(PropertyPath path, Object value) {
+                if (properties.containsKey(path)) {
+                    throw new IllegalArgumentException("Duplicate value for " + path);
+                }
+                properties.put(path, value);
+            }
+        };
+    }
+
+    /**
+     * Streaming WriteContext: properties are pushed into sink in
+     * serialization order instead of collecting them.
+     */
+    protected WriteContext(SchemaRoot schemaRoot, Object root, PropertySink sink) {
+        this.root = root;
+        this.schemaRoot = schemaRoot;
+        this.properties = null;
+        this.sink = Check.notNull(sink, "sink");
     }
 
     public void serialize(PropertyPath path, Object object) {
-        queue.add(new QueueItem<PropertyPath, Object>(path, object));
+        if (!queuedPaths.add(path)) {
+            throw new IllegalArgumentException("Duplicate value for " + path);
+        }
+        if (currentSchema != null && currentSchema.isReference() && !sharedPaths.add(path)) {
+            return;
+        }
+        queue.add(new Item(path, object, object != null ? getSchema(path) : null));
     }
 
     public Map<PropertyPath, Object> getMap() {
-        serialize(PropertyPath.ROOT, root);
-        QueueItem<PropertyPath, Object> currentItem;
+        if (properties == null) {
+            throw new IllegalStateException("Streaming WriteContext doesn't collect properties");
+        }
+        write();
+        return unmodifiableMap(properties);
+    }
+
+    /**
+     * Serialize root object into sink.
+     */
+    public void write() {
+        queue.add(new Item(PropertyPath.ROOT, root, schemaRoot));
+        Item currentItem;
         while ((currentItem = queue.pollFirst()) != null) {
-            PropertyPath path = currentItem.key;
+            PropertyPath path = currentItem.path;
             Object value = currentItem.value;
-            if (!properties.containsKey(path)) {
-                if (value == null) {
-                    put(path, null);
-                } else {
-                    Schema schema = getSchema(path);
-                    if (schema.hasChildren()  // Composite (not scalar)?
-                            && !schema.isReference() // Not a reference - multiple references to same object are allowed
-                            && objects.put(value, path) != null) { // First time for this object?
-                        illegalReferenceException(path, value);
-                    }
-                    schema.serialize(path, currentItem.value, this);
+            if (value == null) {
+                put(path, null);
+            } else {
+                Schema schema = currentItem.schema;
+                if (schema.hasChildren()  // Composite (not scalar)?
+                        && !schema.isReference() // Not a reference - multiple references to same object are allowed
+                        && objects.put(value, path) != null) { // First time for this object?
+                    illegalReferenceException(path, value);
                 }
+                currentPath = path;
+                currentSchema = schema;
+                schema.serialize(path, value, this);
+                queuedPaths.clear();
             }
         }
-        return unmodifiableMap(properties);
+        currentPath = null;
+        currentSchema = null;
     }
 
     private Schema getSchema(PropertyPath path) {
-        return schemaRoot.get(path);
+        if (path == currentPath) {
+            return currentSchema;
+        } else if (path instanceof SubPath) {
+            SubPath subPath = (SubPath) path;
+            Schema parent = getSchema(subPath.parent);
+            Schema schema = parent.getChild(subPath instanceof Index ? "" : subPath.getName());
+            if (schema == null) {
+                throw new IllegalArgumentException("Path not found: " + path);
+            }
+            return schema;
+        } else {
+            return schemaRoot.get(path);
+        }
     }
 
     private void illegalReferenceException(PropertyPath path, Object value) {
@@ -83,10 +183,7 @@ public class WriteContext {
     }
 
     public void put(PropertyPath path, Object value) {
-        if (properties.containsKey(path)) {
-            throw new IllegalArgumentException("Duplicate value for " + path);
-        }
-        properties.put(path, value);
+        sink.put(path, value);
     }
 
     public SchemaRoot getRootMapping() {
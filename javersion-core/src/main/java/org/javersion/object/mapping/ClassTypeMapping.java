@@ -0,0 +1,30 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.object.mapping;
+
+import java.util.Set;
+
+/**
+ * StaticTypeMapping that can only apply to given raw types. Such mappings are
+ * looked up by raw type instead of being tried one by one, if their
+ * applies is final or inherited from a built-in mapping. Overriding applies,
+ * e.g. to match subtypes, makes a mapping to be tried one by one.
+ */
+public interface ClassTypeMapping extends StaticTypeMapping {
+
+    Set<Class<?>> getRawTypes();
+
+}
@@ -16,6 +16,7 @@
 package org.javersion.object.mapping;
 
 import java.util.Collection;
+import java.util.Set;
 
 import org.javersion.object.DescribeContext;
 import org.javersion.object.LocalTypeDescriptor;
@@ -24,7 +25,9 @@ import org.javersion.object.types.ValueType;
 import org.javersion.path.PropertyPath;
 import org.javersion.reflect.TypeDescriptor;
 
-public class CollectionTypeMapping implements TypeMapping {
+import com.google.common.collect.ImmutableSet;
+
+public class CollectionTypeMapping implements ClassTypeMapping {
 
     @Override
     public boolean applies(PropertyPath path, LocalTypeDescriptor localTypeDescriptor) {
@@ -38,4 +41,9 @@ public class CollectionTypeMapping implements TypeMapping {
         return new CollectionType();
     }
 
+    @Override
+    public Set<Class<?>> getRawTypes() {
+        return ImmutableSet.<Class<?>>of(Collection.class);
+    }
+
 }
@@ -23,7 +23,7 @@ import org.javersion.path.PropertyPath;
 import org.javersion.reflect.TypeDescriptor;
 import org.joda.time.DateTime;
 
-public class DateTimeMapping implements TypeMapping {
+public class DateTimeMapping implements StaticTypeMapping {
 
     @Override
     public boolean applies(PropertyPath path, LocalTypeDescriptor localTypeDescriptor) {
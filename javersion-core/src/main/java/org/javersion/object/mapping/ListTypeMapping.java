@@ -16,6 +16,7 @@
 package org.javersion.object.mapping;
 
 import java.util.List;
+import java.util.Set;
 
 import org.javersion.object.DescribeContext;
 import org.javersion.object.LocalTypeDescriptor;
@@ -24,7 +25,9 @@ import org.javersion.object.types.ValueType;
 import org.javersion.path.PropertyPath;
 import org.javersion.reflect.TypeDescriptor;
 
-public class ListTypeMapping implements TypeMapping {
+import com.google.common.collect.ImmutableSet;
+
+public class ListTypeMapping implements ClassTypeMapping {
 
     @Override
     public boolean applies(PropertyPath path, LocalTypeDescriptor localTypeDescriptor) {
@@ -38,4 +41,9 @@ public class ListTypeMapping implements TypeMapping {
         return new ListType();
     }
 
+    @Override
+    public Set<Class<?>> getRawTypes() {
+        return ImmutableSet.<Class<?>>of(List.class);
+    }
+
 }
@@ -16,17 +16,20 @@
 package org.javersion.object.mapping;
 
 import java.util.Map;
+import java.util.Set;
 
 import org.javersion.object.DescribeContext;
 import org.javersion.object.LocalTypeDescriptor;
 import org.javersion.object.types.IdentifiableType;
 import org.javersion.object.types.MapType;
 import org.javersion.object.types.ValueType;
-import org.javersion.path.PropertyPath;
 import org.javersion.path.PropertyPath.SubPath;
+import org.javersion.path.PropertyPath;
 import org.javersion.reflect.TypeDescriptor;
 
-public class MapTypeMapping implements TypeMapping {
+import com.google.common.collect.ImmutableSet;
+
+public class MapTypeMapping implements ClassTypeMapping {
 
     @Override
     public boolean applies(PropertyPath path, LocalTypeDescriptor localTypeDescriptor) {
@@ -47,4 +50,9 @@ public class MapTypeMapping implements TypeMapping {
         return new MapType(identifiableKeyType);
     }
 
+    @Override
+    public Set<Class<?>> getRawTypes() {
+        return ImmutableSet.<Class<?>>of(Map.class);
+    }
+
 }
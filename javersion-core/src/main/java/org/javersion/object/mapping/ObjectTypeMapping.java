@@ -33,21 +33,29 @@ import org.javersion.util.Check;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
-public class ObjectTypeMapping<O> implements TypeMapping {
+public class ObjectTypeMapping<O> implements ClassTypeMapping {
     
     private final Set<TypeDescriptor> types;
     
     private final Class<? extends O> rootType;
+
+    private final Set<Class<?>> rawTypes;
     
     public ObjectTypeMapping() {
         this.rootType = null;
         this.types = null;
+        this.rawTypes = ImmutableSet.of();
     }
     public ObjectTypeMapping(Class<? extends O> rootType, Iterable<TypeDescriptor> types) {
         this.rootType = Check.notNull(rootType, "rootType");
         Check.notNullOrEmpty(types, "types");
 
         this.types = ImmutableSet.copyOf(types);
+        ImmutableSet.Builder<Class<?>> rawTypes = ImmutableSet.builder();
+        for (TypeDescriptor type : this.types) {
+            rawTypes.add(type.getRawType());
+        }
+        this.rawTypes = rawTypes.build();
     }
 
     @Override
@@ -56,7 +64,7 @@ public class ObjectTypeMapping<O> implements TypeMapping {
     }
     
     @Override
-    public  synchronized ValueType describe(PropertyPath path, TypeDescriptor type, DescribeContext context) {
+    public ValueType describe(PropertyPath path, TypeDescriptor type, DescribeContext context) {
         return describe(path, rootType, types, context);
     }
     
@@ -83,5 +91,10 @@ public class ObjectTypeMapping<O> implements TypeMapping {
             return new ObjectType<>(rootType, allTypes);
         }
     }
-    
-}
\ No newline at end of file
+
+    @Override
+    public Set<Class<?>> getRawTypes() {
+        return rawTypes;
+    }
+
+}
@@ -15,10 +15,14 @@
  */
 package org.javersion.object.mapping;
 
+import java.util.Set;
+
 import org.javersion.object.LocalTypeDescriptor;
 import org.javersion.path.PropertyPath;
 import org.javersion.reflect.TypeDescriptor;
 
+import com.google.common.collect.ImmutableSet;
+
 public class PrimitiveTypeMapping extends SimpleTypeMapping {
     
     private final Class<?> primitiveType;
@@ -34,4 +38,9 @@ public class PrimitiveTypeMapping extends SimpleTypeMapping {
         return super.applies(path, localTypeDescriptor) || typeDescriptor.getRawType().equals(primitiveType);
     }
 
+    @Override
+    public Set<Class<?>> getRawTypes() {
+        return ImmutableSet.<Class<?>>of(type, primitiveType);
+    }
+
 }
\ No newline at end of file
@@ -25,7 +25,9 @@ import org.javersion.object.types.ValueType;
 import org.javersion.path.PropertyPath;
 import org.javersion.reflect.TypeDescriptor;
 
-public class SetTypeMapping implements TypeMapping {
+import com.google.common.collect.ImmutableSet;
+
+public class SetTypeMapping implements ClassTypeMapping {
 
     @Override
     public boolean applies(PropertyPath path, LocalTypeDescriptor localTypeDescriptor) {
@@ -39,4 +41,9 @@ public class SetTypeMapping implements TypeMapping {
         return new SetType((IdentifiableType) valueType);
     }
 
+    @Override
+    public Set<Class<?>> getRawTypes() {
+        return ImmutableSet.<Class<?>>of(Set.class);
+    }
+
 }
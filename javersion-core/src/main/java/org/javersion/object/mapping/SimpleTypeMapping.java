@@ -15,6 +15,8 @@
  */
 package org.javersion.object.mapping;
 
+import java.util.Set;
+
 import org.javersion.object.DescribeContext;
 import org.javersion.object.LocalTypeDescriptor;
 import org.javersion.object.types.SimpleValueType;
@@ -23,7 +25,9 @@ import org.javersion.path.PropertyPath;
 import org.javersion.reflect.TypeDescriptor;
 import org.javersion.util.Check;
 
-public class SimpleTypeMapping implements TypeMapping {
+import com.google.common.collect.ImmutableSet;
+
+public class SimpleTypeMapping implements ClassTypeMapping {
 
     public final Class<?> type;
     
@@ -49,4 +53,9 @@ public class SimpleTypeMapping implements TypeMapping {
         return valueType;
     }
 
+    @Override
+    public Set<Class<?>> getRawTypes() {
+        return ImmutableSet.<Class<?>>of(type);
+    }
+
 }
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.object.mapping;
+
+/**
+ * TypeMapping whose {@link #applies(org.javersion.path.PropertyPath, org.javersion.object.LocalTypeDescriptor) applies}
+ * depends only on the type, not on the path. Results of such mappings are
+ * memoized per type while describing a schema.
+ */
+public interface StaticTypeMapping extends TypeMapping {
+
+}
@@ -15,6 +15,8 @@
  */
 package org.javersion.object.mapping;
 
+import java.util.Set;
+
 import org.javersion.object.DescribeContext;
 import org.javersion.object.LocalTypeDescriptor;
 import org.javersion.object.types.SimpleValueType;
@@ -22,7 +24,9 @@ import org.javersion.object.types.ValueType;
 import org.javersion.path.PropertyPath;
 import org.javersion.reflect.TypeDescriptor;
 
-public class StringTypeMapping implements TypeMapping {
+import com.google.common.collect.ImmutableSet;
+
+public class StringTypeMapping implements ClassTypeMapping {
 
     public static final ValueType STRING_TYPE = new SimpleValueType() {
         
@@ -43,4 +47,9 @@ public class StringTypeMapping implements TypeMapping {
         return STRING_TYPE;
     }
 
-}
\ No newline at end of file
+    @Override
+    public Set<Class<?>> getRawTypes() {
+        return ImmutableSet.<Class<?>>of(String.class);
+    }
+
+}
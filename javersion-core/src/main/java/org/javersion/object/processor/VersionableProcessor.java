@@ -0,0 +1,176 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.object.processor;
+
+import static javax.lang.model.element.Modifier.ABSTRACT;
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.STATIC;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import org.javersion.reflect.GeneratedAccessors;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Generates {@link GeneratedAccessors} for {@link org.javersion.object.Versionable}
+ * classes. Generated accessors use plain field access and constructor calls
+ * and are picked up by the default
+ * {@link org.javersion.reflect.GeneratedAccessorStrategy}. Private and final
+ * fields are left for the runtime fallback.
+ * <p>
+ * The processor is not registered as a service; enable it explicitly, e.g.
+ * <code>javac -processor org.javersion.object.processor.VersionableProcessor</code>.
+ */
+@SupportedAnnotationTypes("org.javersion.object.Versionable")
+public class VersionableProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS && isAccessible((TypeElement) element)) {
+                    try {
+                        generate((TypeElement) element);
+                    } catch (IOException e) {
+                        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.toString(), element);
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAccessible(TypeElement type) {
+        Element element = type;
+        while (element instanceof TypeElement) {
+            TypeElement typeElement = (TypeElement) element;
+            NestingKind nesting = typeElement.getNestingKind();
+            if (typeElement.getModifiers().contains(PRIVATE) || !(nesting == NestingKind.TOP_LEVEL || nesting == NestingKind.MEMBER)) {
+                return false;
+            }
+            element = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String packagePrefix = pkg.isUnnamed() ? "" : pkg.getQualifiedName() + ".";
+        String className = binaryName.substring(packagePrefix.length()) + GeneratedAccessors.SUFFIX;
+        String typeName = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+
+        List<VariableElement> fields = Lists.newArrayList();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<javax.lang.model.element.Modifier> modifiers = field.getModifiers();
+            if (!(modifiers.contains(STATIC) || modifiers.contains(PRIVATE) || modifiers.contains(FINAL))) {
+                fields.add(field);
+            }
+        }
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(binaryName + GeneratedAccessors.SUFFIX, type).openWriter())) {
+            if (!pkg.isUnnamed()) {
+                out.println("package " + pkg.getQualifiedName() + ";");
+                out.println();
+            }
+            out.println("// Generated by " + VersionableProcessor.class.getName());
+            out.println("@SuppressWarnings({\"rawtypes\", \"unchecked\"})");
+            out.println("public final class " + className + " implements " + GeneratedAccessors.class.getName() + " {");
+            out.println();
+            out.println("    @Override");
+            out.println("    public org.javersion.reflect.FieldAccessor getFieldAccessor(String fieldName) {");
+            out.println("        switch (fieldName) {");
+            for (VariableElement field : fields) {
+                String name = field.getSimpleName().toString();
+                TypeMirror fieldType = field.asType();
+                boolean primitive = fieldType.getKind().isPrimitive();
+                String valueType = primitive
+                        ? processingEnv.getTypeUtils().boxedClass((PrimitiveType) fieldType).getQualifiedName().toString()
+                        : processingEnv.getTypeUtils().erasure(fieldType).toString();
+                out.println("            case \"" + name + "\": return new org.javersion.reflect.FieldAccessor() {");
+                out.println("                public Object get(Object obj) {");
+                out.println("                    return ((" + typeName + ") obj)." + name + ";");
+                out.println("                }");
+                out.println("                public void set(Object obj, Object value) {");
+                if (primitive) {
+                    out.println("                    if (value == null) {");
+                    out.println("                        throw new org.javersion.reflect.ReflectionException(\"null value for primitive field " + name + "\");");
+                    out.println("                    }");
+                }
+                out.println("                    ((" + typeName + ") obj)." + name + " = (" + valueType + ") value;");
+                out.println("                }");
+                out.println("            };");
+            }
+            out.println("            default: return null;");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public org.javersion.reflect.Instantiator getInstantiator() {");
+            if (isInstantiable(type)) {
+                out.println("        return new org.javersion.reflect.Instantiator() {");
+                out.println("            public Object newInstance() {");
+                out.println("                return new " + typeName + "();");
+                out.println("            }");
+                out.println("        };");
+            } else {
+                out.println("        return null;");
+            }
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private static boolean isInstantiable(TypeElement type) {
+        if (type.getModifiers().contains(ABSTRACT)
+                || (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(STATIC))) {
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                return !constructor.getModifiers().contains(PRIVATE);
+            }
+        }
+        return false;
+    }
+
+}
@@ -65,6 +65,19 @@ public class ObjectType<O> implements ValueType {
         }
     }
 
+    public boolean hasField(Object object, String fieldName) {
+        TypeDescriptor typeDescriptor = types.get(object.getClass());
+        return typeDescriptor != null && typeDescriptor.hasField(fieldName);
+    }
+
+    public Object getFieldValue(Object object, String fieldName) {
+        return types.get(object.getClass()).getField(fieldName).get(object);
+    }
+
+    public void setFieldValue(Object object, String fieldName, Object value) {
+        types.get(object.getClass()).getField(fieldName).set(object, value);
+    }
+
     @Override
     public void serialize(PropertyPath path, Object object, WriteContext context) {
         context.put(path, object.getClass());
@@ -31,6 +31,8 @@ import org.javersion.util.Check;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 public abstract class PropertyPath implements Iterable<SubPath> {
     
@@ -53,6 +55,18 @@ public abstract class PropertyPath implements Iterable<SubPath> {
     private static final Set<Character> ESCAPED_CHARS = ImmutableSet.of('\\', '.', '[', ']');
     
     public static final Root ROOT = Root.ROOT;
+
+    /**
+     * All sub paths are interned: equal paths are the same instance as long
+     * as any of them is reachable. As parents are interned, equality and hash
+     * of a new path are resolved without walking the parent chain.
+     */
+    private static final Interner<SubPath> INTERNER = Interners.newWeakInterner();
+
+    @SuppressWarnings("unchecked")
+    private static <T extends SubPath> T intern(T path) {
+        return (T) INTERNER.intern(path);
+    }
     
     public static PropertyPath parse(String path) {
         PropertyPathParser parser = new PropertyPathParser(
@@ -99,7 +113,7 @@ public abstract class PropertyPath implements Iterable<SubPath> {
     PropertyPath() {}
     
     public Property property(String name) {
-        return new Property(this, name);
+        return intern(new Property(this, name));
     }
     
     public Index index(long index) {
@@ -107,7 +121,7 @@ public abstract class PropertyPath implements Iterable<SubPath> {
     }
     
     public Index index(String index) {
-        return new Index(this, index);
+        return intern(new Index(this, index));
     }
     
     public Iterator<SubPath> iterator() {
@@ -136,11 +150,15 @@ public abstract class PropertyPath implements Iterable<SubPath> {
     }
     
     public PropertyPath toSchemaPath() {
-        PropertyPath schemaPath = ROOT;
-        for (PropertyPath path : this) {
-            schemaPath = path.normalize(schemaPath);
+        PropertyPath result = schemaPath;
+        if (result == null) {
+            result = ROOT;
+            for (PropertyPath path : this) {
+                result = path.normalize(result);
+            }
+            schemaPath = result;
         }
-        return schemaPath;
+        return result;
     }
 
     public abstract String toString();
@@ -159,6 +177,8 @@ public abstract class PropertyPath implements Iterable<SubPath> {
     
     private volatile List<SubPath> fullPath;
 
+    private volatile PropertyPath schemaPath;
+
     public static final class Root extends PropertyPath {
 
         private static final Root ROOT = new Root();
@@ -232,12 +252,15 @@ public abstract class PropertyPath implements Iterable<SubPath> {
     public static final class Property extends SubPath {
 
         public final String name;
+
+        private final int hashCode;
         
         private Property(PropertyPath parent, String name) {
             super(parent);
             Check.notNullOrEmpty(name, "name");
             validate(name);
             this.name = name;
+            this.hashCode = 31 * parent.hashCode() + name.hashCode();
         }
 
         @Override
@@ -246,7 +269,7 @@ public abstract class PropertyPath implements Iterable<SubPath> {
                 return true;
             } else if (obj instanceof Property) {
                 Property other = (Property) obj;
-                return this.name.equals(other.name) && parent.equals(other.parent);
+                return parent == other.parent && this.name.equals(other.name);
             } else {
                 return false;
             }
@@ -254,7 +277,7 @@ public abstract class PropertyPath implements Iterable<SubPath> {
 
         @Override
         public int hashCode() {
-            return 31 * parent.hashCode() + name.hashCode();
+            return hashCode;
         }
 
         @Override
@@ -273,7 +296,7 @@ public abstract class PropertyPath implements Iterable<SubPath> {
 
         @Override
         Property normalize(PropertyPath newParent) {
-            return parent.equals(newParent) ? this : new Property(newParent, name);
+            return parent == newParent ? this : newParent.property(name);
         }
 
     }
@@ -281,11 +304,14 @@ public abstract class PropertyPath implements Iterable<SubPath> {
     public static final class Index extends SubPath {
         
         public final String index;
+
+        private final int hashCode;
         
         private Index(PropertyPath parent, String index) {
             super(parent);
             this.index = Check.notNull(index, "index");
             validate(index);
+            this.hashCode = 31 * parent.hashCode() + index.hashCode();
         }
 
         @Override
@@ -294,7 +320,7 @@ public abstract class PropertyPath implements Iterable<SubPath> {
                 return true;
             } else if (obj instanceof Index) {
                 Index other = (Index) obj;
-                return this.index.equals(other.index) && parent.equals(other.parent);
+                return parent == other.parent && this.index.equals(other.index);
             } else {
                 return false;
             }
@@ -302,7 +328,7 @@ public abstract class PropertyPath implements Iterable<SubPath> {
 
         @Override
         public int hashCode() {
-            return 31 * parent.hashCode() + index.hashCode();
+            return hashCode;
         }
 
         @Override
@@ -317,7 +343,7 @@ public abstract class PropertyPath implements Iterable<SubPath> {
         
         @Override
         Index normalize(PropertyPath newParent) {
-            return parent.equals(newParent) && EMPTY_STRING.equals(index) ? this : new Index(newParent, EMPTY_STRING);
+            return parent == newParent && EMPTY_STRING.equals(index) ? this : newParent.index(EMPTY_STRING);
         }
         
     }
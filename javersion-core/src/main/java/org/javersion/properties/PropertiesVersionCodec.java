@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.properties;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+
+import org.javersion.core.Revision;
+import org.javersion.core.VersionType;
+import org.javersion.store.AbstractVersionCodec;
+
+import com.google.common.io.ByteArrayDataOutput;
+
+public class PropertiesVersionCodec extends AbstractVersionCodec<String, String, PropertiesVersion> {
+
+    public static final PropertiesVersionCodec INSTANCE = new PropertiesVersionCodec();
+
+    @Override
+    protected PropertiesVersion newVersion(Revision revision, String branch, VersionType type, Set<Revision> parents, Map<String, String> changeset) {
+        return new PropertiesVersion.Builder(revision)
+                .branch(branch)
+                .type(type)
+                .parents(parents)
+                .changeset(changeset)
+                .build();
+    }
+
+    @Override
+    protected void writeKey(String key, ByteArrayDataOutput out) {
+        writeString(key, out);
+    }
+
+    @Override
+    protected String readKey(ByteBuffer in) {
+        return readString(in);
+    }
+
+    @Override
+    protected void writeValue(String value, ByteArrayDataOutput out) {
+        writeString(value, out);
+    }
+
+    @Override
+    protected String readValue(ByteBuffer in) {
+        return readString(in);
+    }
+
+}
@@ -17,6 +17,8 @@ package org.javersion.properties;
 
 import org.javersion.core.AbstractVersionGraph;
 import org.javersion.core.AbstractVersionGraphBuilder;
+import org.javersion.core.Checkpoint;
+import org.javersion.core.VersionLog;
 import org.javersion.properties.PropertiesVersionGraph.Builder;
 
 public final class PropertiesVersionGraph extends AbstractVersionGraph<String, String, PropertiesVersion, PropertiesVersionGraph, Builder> {
@@ -39,6 +41,14 @@ public final class PropertiesVersionGraph extends AbstractVersionGraph<String, S
         return builder.build();
     }
 
+    public static PropertiesVersionGraph init(VersionLog<String, String, PropertiesVersion> log) {
+        return new Builder(log, null).build();
+    }
+
+    public static PropertiesVersionGraph init(Checkpoint<String, String, PropertiesVersion> checkpoint, VersionLog<String, String, PropertiesVersion> log) {
+        return new Builder(log, checkpoint).build();
+    }
+
     private PropertiesVersionGraph() {
         super();
     }
@@ -57,6 +67,10 @@ public final class PropertiesVersionGraph extends AbstractVersionGraph<String, S
         protected Builder() {
             super();
         }
+
+        protected Builder(VersionLog<String, String, PropertiesVersion> log, Checkpoint<String, String, PropertiesVersion> checkpoint) {
+            super(log, checkpoint);
+        }
         
         protected Builder(PropertiesVersionGraph parentGraph) {
             super(parentGraph);
@@ -27,10 +27,12 @@ public abstract class AbstractFieldDescriptor<
     
     protected final Field field;
 
+    private final FieldAccessor accessor;
+
     public AbstractFieldDescriptor(Ts typeDescriptors, Field field) {
         super(typeDescriptors);
         this.field = Check.notNull(field, "field");
-        field.setAccessible(true);
+        this.accessor = typeDescriptors.accessorStrategy.getFieldAccessor(field);
     }
     
     public Object getStatic() {
@@ -38,11 +40,7 @@ public abstract class AbstractFieldDescriptor<
     }
     
     public Object get(Object obj) {
-        try {
-            return field.get(obj);
-        } catch (IllegalArgumentException | IllegalAccessException e) {
-            throw new ReflectionException(e);
-        }
+        return accessor.get(obj);
     }
     
     public void setStatic(Object value) {
@@ -50,11 +48,7 @@ public abstract class AbstractFieldDescriptor<
     }
     
     public void set(Object obj, Object value) {
-        try {
-            field.set(obj, value);
-        } catch (IllegalArgumentException | IllegalAccessException e) {
-            throw new ReflectionException(e);
-        }
+        accessor.set(obj, value);
     }
 
     public T getType() {
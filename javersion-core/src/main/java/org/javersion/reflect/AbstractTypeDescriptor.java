@@ -18,7 +18,6 @@ package org.javersion.reflect;
 import static com.google.common.base.Predicates.not;
 import static java.util.Collections.unmodifiableSet;
 
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -69,6 +68,8 @@ public abstract class AbstractTypeDescriptor<
 
     private volatile Set<Class<?>> classes;
 
+    private volatile Instantiator instantiator;
+
     public AbstractTypeDescriptor(Ts typeDescriptors, TypeToken<?> typeToken) {
         super(typeDescriptors);
         this.typeToken = Check.notNull(typeToken, "typeToken");
@@ -191,14 +192,11 @@ public abstract class AbstractTypeDescriptor<
     }
 
     public Object newInstance() {
-        Constructor<?> constructor;
-        try {
-            constructor = getRawType().getDeclaredConstructor();
-            constructor.setAccessible(true);
-            return constructor.newInstance();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        Instantiator result = instantiator;
+        if (result == null) {
+            result = instantiator = typeDescriptors.accessorStrategy.getInstantiator(getRawType());
         }
+        return result.newInstance();
     }
 
     private static LinkedHashSet<Class<?>> newLinkedHashSet() {
@@ -18,13 +18,13 @@ package org.javersion.reflect;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.javersion.util.Check;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.common.collect.Maps;
 import com.google.common.reflect.TypeToken;
 
 public abstract class AbstractTypeDescriptors<
@@ -47,9 +47,11 @@ public abstract class AbstractTypeDescriptors<
         }
     };
     
-    private final Map<TypeToken<?>, T> cache = Maps.newHashMap();
+    private final ConcurrentMap<TypeToken<?>, T> cache = new ConcurrentHashMap<>();
 
     protected final Predicate<? super Field> fieldFilter;
+
+    protected final AccessorStrategy accessorStrategy;
     
     
     public AbstractTypeDescriptors() {
@@ -57,7 +59,12 @@ public abstract class AbstractTypeDescriptors<
     }
     
     public AbstractTypeDescriptors(Predicate<? super Field> fieldFilter) {
+        this(fieldFilter, GeneratedAccessorStrategy.INSTANCE);
+    }
+
+    public AbstractTypeDescriptors(Predicate<? super Field> fieldFilter, AccessorStrategy accessorStrategy) {
         this.fieldFilter = Check.notNull(fieldFilter, "fieldFilter");
+        this.accessorStrategy = Check.notNull(accessorStrategy, "accessorStrategy");
     }
     
     
@@ -69,15 +76,20 @@ public abstract class AbstractTypeDescriptors<
         return get(TypeToken.of(type));
     }
     
+    /**
+     * Lock-free on cache hits. Racing threads may create a descriptor
+     * concurrently, but only the first one published is returned.
+     */
     public T get(TypeToken<?> typeToken) {
-        synchronized (cache) {
-            T descriptor = cache.get(typeToken);
-            if (descriptor == null) {
-                descriptor = newTypeDescriptor(typeToken);
-                cache.put(typeToken, descriptor);
+        T descriptor = cache.get(typeToken);
+        if (descriptor == null) {
+            descriptor = newTypeDescriptor(typeToken);
+            T previous = cache.putIfAbsent(typeToken, descriptor);
+            if (previous != null) {
+                descriptor = previous;
             }
-            return descriptor;
         }
+        return descriptor;
     }
 
     protected abstract F newFieldDescriptor(Field field);
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.reflect;
+
+import java.lang.reflect.Field;
+
+/**
+ * Strategy for accessing fields and instantiating classes.
+ *
+ * @see ReflectionAccessorStrategy
+ * @see MethodHandleAccessorStrategy
+ * @see GeneratedAccessorStrategy
+ */
+public interface AccessorStrategy {
+
+    FieldAccessor getFieldAccessor(Field field);
+
+    /**
+     * @return instantiator using the no-arg constructor of given class.
+     */
+    Instantiator getInstantiator(Class<?> clazz);
+
+}
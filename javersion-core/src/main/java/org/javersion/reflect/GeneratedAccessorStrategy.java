@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.reflect;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.javersion.util.Check;
+
+import com.google.common.base.Optional;
+
+/**
+ * Uses {@link GeneratedAccessors} of a class when present and the fallback
+ * strategy otherwise.
+ */
+public class GeneratedAccessorStrategy implements AccessorStrategy {
+
+    public static final GeneratedAccessorStrategy INSTANCE = new GeneratedAccessorStrategy(ReflectionAccessorStrategy.INSTANCE);
+
+    private final AccessorStrategy fallback;
+
+    private final ConcurrentMap<Class<?>, Optional<GeneratedAccessors>> generatedAccessors = new ConcurrentHashMap<>();
+
+    public GeneratedAccessorStrategy(AccessorStrategy fallback) {
+        this.fallback = Check.notNull(fallback, "fallback");
+    }
+
+    @Override
+    public FieldAccessor getFieldAccessor(Field field) {
+        GeneratedAccessors accessors = getGeneratedAccessors(field.getDeclaringClass());
+        FieldAccessor accessor = accessors != null ? accessors.getFieldAccessor(field.getName()) : null;
+        return accessor != null ? accessor : fallback.getFieldAccessor(field);
+    }
+
+    @Override
+    public Instantiator getInstantiator(Class<?> clazz) {
+        GeneratedAccessors accessors = getGeneratedAccessors(clazz);
+        Instantiator instantiator = accessors != null ? accessors.getInstantiator() : null;
+        return instantiator != null ? instantiator : fallback.getInstantiator(clazz);
+    }
+
+    private GeneratedAccessors getGeneratedAccessors(Class<?> clazz) {
+        Optional<GeneratedAccessors> accessors = generatedAccessors.get(clazz);
+        if (accessors == null) {
+            accessors = loadGeneratedAccessors(clazz);
+            generatedAccessors.putIfAbsent(clazz, accessors);
+        }
+        return accessors.orNull();
+    }
+
+    private static Optional<GeneratedAccessors> loadGeneratedAccessors(Class<?> clazz) {
+        ClassLoader classLoader = clazz.getClassLoader();
+        if (classLoader == null) {
+            return Optional.absent();
+        }
+        try {
+            Class<?> accessorsClass = Class.forName(clazz.getName() + GeneratedAccessors.SUFFIX, true, classLoader);
+            if (GeneratedAccessors.class.isAssignableFrom(accessorsClass)) {
+                return Optional.of((GeneratedAccessors) accessorsClass.newInstance());
+            }
+            return Optional.absent();
+        } catch (ClassNotFoundException e) {
+            return Optional.absent();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new ReflectionException(e);
+        }
+    }
+
+}
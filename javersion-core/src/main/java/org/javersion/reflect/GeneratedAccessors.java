@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.reflect;
+
+/**
+ * Accessors generated at compile time for a class. Implementation for class
+ * <code>com.example.Foo</code> is named <code>com.example.Foo_Accessors</code>
+ * (binary name of the class + {@link #SUFFIX}).
+ *
+ * @see GeneratedAccessorStrategy
+ */
+public interface GeneratedAccessors {
+
+    String SUFFIX = "_Accessors";
+
+    /**
+     * @return accessor for a field declared by the class or null if not generated.
+     */
+    FieldAccessor getFieldAccessor(String fieldName);
+
+    /**
+     * @return instantiator for the class or null if not generated.
+     */
+    Instantiator getInstantiator();
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.reflect;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Accessors based on method handles resolved once per field and class. Falls
+ * back to reflection if a handle cannot be resolved, e.g. for final fields.
+ * <p>
+ * Handles are held in accessor instances, not in static final fields, so the
+ * JIT cannot inline them as constants: this is not faster than reflection
+ * (see AccessorPerfTest). Classes that need fast access should have
+ * generated accessors, see {@link GeneratedAccessorStrategy}.
+ */
+public class MethodHandleAccessorStrategy implements AccessorStrategy {
+
+    public static final MethodHandleAccessorStrategy INSTANCE = new MethodHandleAccessorStrategy();
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    @Override
+    public FieldAccessor getFieldAccessor(Field field) {
+        field.setAccessible(true);
+        MethodHandle getter;
+        MethodHandle setter;
+        try {
+            getter = LOOKUP.unreflectGetter(field);
+            setter = LOOKUP.unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            return ReflectionAccessorStrategy.INSTANCE.getFieldAccessor(field);
+        }
+        if (Modifier.isStatic(field.getModifiers())) {
+            getter = MethodHandles.dropArguments(getter, 0, Object.class);
+            setter = MethodHandles.dropArguments(setter, 0, Object.class);
+        }
+        return new MethodHandleFieldAccessor(
+                getter.asType(methodType(Object.class, Object.class)),
+                setter.asType(methodType(void.class, Object.class, Object.class)));
+    }
+
+    @Override
+    public Instantiator getInstantiator(Class<?> clazz) {
+        try {
+            Constructor<?> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return new MethodHandleInstantiator(LOOKUP.unreflectConstructor(constructor).asType(methodType(Object.class)));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return ReflectionAccessorStrategy.INSTANCE.getInstantiator(clazz);
+        }
+    }
+
+    private static final class MethodHandleFieldAccessor implements FieldAccessor {
+
+        private final MethodHandle getter;
+
+        private final MethodHandle setter;
+
+        MethodHandleFieldAccessor(MethodHandle getter, MethodHandle setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        public Object get(Object obj) {
+            try {
+                return (Object) getter.invokeExact(obj);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ReflectionException(e);
+            }
+        }
+
+        @Override
+        public void set(Object obj, Object value) {
+            try {
+                setter.invokeExact(obj, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ReflectionException(e);
+            }
+        }
+    }
+
+    private static final class MethodHandleInstantiator implements Instantiator {
+
+        private final MethodHandle constructor;
+
+        MethodHandleInstantiator(MethodHandle constructor) {
+            this.constructor = constructor;
+        }
+
+        @Override
+        public Object newInstance() {
+            try {
+                return (Object) constructor.invokeExact();
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ReflectionException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.reflect;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+
+public class ReflectionAccessorStrategy implements AccessorStrategy {
+
+    public static final ReflectionAccessorStrategy INSTANCE = new ReflectionAccessorStrategy();
+
+    @Override
+    public FieldAccessor getFieldAccessor(final Field field) {
+        field.setAccessible(true);
+        return new FieldAccessor() {
+            @Override
+            public Object get(Object obj) {
+                try {
+                    return field.get(obj);
+                } catch (IllegalArgumentException | IllegalAccessException e) {
+                    throw new ReflectionException(e);
+                }
+            }
+
+            @Override
+            public void set(Object obj, Object value) {
+                try {
+                    field.set(obj, value);
+                } catch (IllegalArgumentException | IllegalAccessException e) {
+                    throw new ReflectionException(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public Instantiator getInstantiator(Class<?> clazz) {
+        final Constructor<?> constructor;
+        try {
+            constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (final NoSuchMethodException e) {
+            return new Instantiator() {
+                @Override
+                public Object newInstance() {
+                    throw new ReflectionException(e);
+                }
+            };
+        }
+        return new Instantiator() {
+            @Override
+            public Object newInstance() {
+                try {
+                    return constructor.newInstance();
+                } catch (Exception e) {
+                    throw new ReflectionException(e);
+                }
+            }
+        };
+    }
+
+}
@@ -39,6 +39,10 @@ public class TypeDescriptors extends AbstractTypeDescriptors<FieldDescriptor, Ty
         super(fieldFilter);
     }
 
+    public TypeDescriptors(Predicate<? super Field> fieldFilter, AccessorStrategy accessorStrategy) {
+        super(fieldFilter, accessorStrategy);
+    }
+
     @Override
     public FieldDescriptor newFieldDescriptor(Field field) {
         return new FieldDescriptor(this, field);
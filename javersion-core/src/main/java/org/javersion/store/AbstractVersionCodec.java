@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.store;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+
+import org.javersion.core.Revision;
+import org.javersion.core.Version;
+import org.javersion.core.VersionType;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteArrayDataOutput;
+
+/**
+ * Encodes the generic parts of a version (revision, branch, type, parents) and
+ * delegates changeset keys and values to subclasses.
+ */
+public abstract class AbstractVersionCodec<K, V, T extends Version<K, V>> implements VersionCodec<T> {
+
+    private static final VersionType[] TYPES = VersionType.values();
+
+    @Override
+    public void encode(T version, ByteArrayDataOutput out) {
+        writeRevision(version.revision, out);
+        writeString(version.branch, out);
+        out.writeByte(version.type.ordinal());
+
+        out.writeInt(version.parentRevisions.size());
+        for (Revision parent : version.parentRevisions) {
+            writeRevision(parent, out);
+        }
+
+        out.writeInt(version.changeset.size());
+        for (Map.Entry<K, V> entry : version.changeset.entrySet()) {
+            writeKey(entry.getKey(), out);
+            writeValue(entry.getValue(), out);
+        }
+    }
+
+    @Override
+    public T decode(ByteBuffer in) {
+        Revision revision = readRevision(in);
+        String branch = readString(in);
+        VersionType type = TYPES[in.get()];
+
+        int parentCount = in.getInt();
+        ImmutableSet.Builder<Revision> parents = ImmutableSet.builder();
+        for (int i=0; i < parentCount; i++) {
+            parents.add(readRevision(in));
+        }
+
+        int changeCount = in.getInt();
+        Map<K, V> changeset = Maps.newLinkedHashMap();
+        for (int i=0; i < changeCount; i++) {
+            K key = readKey(in);
+            changeset.put(key, readValue(in));
+        }
+        return newVersion(revision, branch, type, parents.build(), changeset);
+    }
+
+    protected abstract T newVersion(Revision revision, String branch, VersionType type, Set<Revision> parents, Map<K, V> changeset);
+
+    protected abstract void writeKey(K key, ByteArrayDataOutput out);
+
+    protected abstract K readKey(ByteBuffer in);
+
+    protected abstract void writeValue(V value, ByteArrayDataOutput out);
+
+    protected abstract V readValue(ByteBuffer in);
+
+    protected static void writeRevision(Revision revision, ByteArrayDataOutput out) {
+        out.writeLong(revision.getTimeSeq());
+        out.writeLong(revision.getNode());
+    }
+
+    protected static Revision readRevision(ByteBuffer in) {
+        long timeSeq = in.getLong();
+        long node = in.getLong();
+        return new Revision(timeSeq, node);
+    }
+
+    protected static void writeString(String str, ByteArrayDataOutput out) {
+        if (str == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = str.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    protected static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+}
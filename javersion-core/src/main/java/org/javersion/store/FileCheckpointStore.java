@@ -0,0 +1,250 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.store;
+
+import static com.google.common.collect.Iterables.getFirst;
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.javersion.core.Checkpoint;
+import org.javersion.core.Revision;
+import org.javersion.core.RevisionIndex;
+import org.javersion.core.RevisionSet;
+import org.javersion.core.Version;
+import org.javersion.core.VersionProperty;
+import org.javersion.util.Check;
+import org.javersion.util.MapChange;
+import org.javersion.util.MutableHashMap;
+import org.javersion.util.PersistentHashMap;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Stores checkpoints as files named after the log position they cover.
+ * Files are written to a temporary file first, forced to disk and then moved
+ * into place so that a crash never leaves a partially written checkpoint behind.
+ *
+ * <pre>
+ * checkpoint: logPosition(long) labelCount(int) label* nodeCount(int) node*
+ * label: revision chain(int) position(int) (in ordinal order)
+ * node: versionLength(int) version changeCount(int) property* removalCount(int) key* chainCount(int) chain* conflictCount(int) conflict*
+ * chain: chain(int) position(int)
+ * property, conflict: key revision value
+ * </pre>
+ *
+ * Nodes are written in topological order and merged properties of a node are
+ * stored as changes against its first parent. On load they are applied to the
+ * parent's map so that restored nodes share structure just like the original
+ * ones and the file grows with changes instead of versions times properties.
+ */
+public class FileCheckpointStore<K, V, T extends Version<K, V>> {
+
+    private static final String PREFIX = "checkpoint-";
+
+    private final Path directory;
+
+    private final AbstractVersionCodec<K, V, T> codec;
+
+    public FileCheckpointStore(Path directory, AbstractVersionCodec<K, V, T> codec) {
+        this.directory = Check.notNull(directory, "directory");
+        this.codec = Check.notNull(codec, "codec");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void save(Checkpoint<K, V, T> checkpoint) {
+        Check.notNull(checkpoint, "checkpoint");
+        Path file = directory.resolve(format("%s%016x", PREFIX, checkpoint.logPosition));
+        Path tmp = directory.resolve(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, CREATE, TRUNCATE_EXISTING, WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(encode(checkpoint));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            forceDirectory();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Makes the move durable where the platform supports syncing a directory.
+     */
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported (e.g. Windows)
+        }
+    }
+
+    /**
+     * @return the checkpoint with the greatest log position or null if none is found.
+     */
+    public Checkpoint<K, V, T> loadLatest() {
+        Path latest = null;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "????????????????")) {
+            for (Path path : stream) {
+                if (latest == null || path.getFileName().toString().compareTo(latest.getFileName().toString()) > 0) {
+                    latest = path;
+                }
+            }
+            return latest != null ? decode(ByteBuffer.wrap(Files.readAllBytes(latest))) : null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private byte[] encode(Checkpoint<K, V, T> checkpoint) {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeLong(checkpoint.logPosition);
+        RevisionIndex index = checkpoint.index;
+        int size = index.size();
+        out.writeInt(size);
+        for (int ordinal=0; ordinal < size; ordinal++) {
+            AbstractVersionCodec.writeRevision(index.revision(ordinal), out);
+            out.writeInt(index.chain(ordinal));
+            out.writeInt(index.position(ordinal));
+        }
+        out.writeInt(checkpoint.nodes.size());
+        Map<Revision, PersistentHashMap<K, VersionProperty<V>>> mergedProperties = Maps.newHashMap();
+        for (Checkpoint.Node<K, V, T> node : checkpoint.nodes) {
+            ByteArrayDataOutput version = ByteStreams.newDataOutput();
+            codec.encode(node.version, version);
+            byte[] bytes = version.toByteArray();
+            out.writeInt(bytes.length);
+            out.write(bytes);
+
+            List<Map.Entry<K, VersionProperty<V>>> changes = Lists.newArrayList();
+            List<K> removals = Lists.newArrayList();
+            for (MapChange<K, VersionProperty<V>> change : parentProperties(node.version, mergedProperties).diff(node.mergedProperties)) {
+                if (change.newEntry != null) {
+                    changes.add(change.newEntry);
+                } else {
+                    removals.add(change.getKey());
+                }
+            }
+            mergedProperties.put(node.version.revision, node.mergedProperties);
+            out.writeInt(changes.size());
+            for (Map.Entry<K, VersionProperty<V>> entry : changes) {
+                writeProperty(entry.getKey(), entry.getValue(), out);
+            }
+            out.writeInt(removals.size());
+            for (K key : removals) {
+                codec.writeKey(key, out);
+            }
+            out.writeInt(node.mergedRevisions.chains.size());
+            for (Map.Entry<Integer, Integer> entry : node.mergedRevisions.chains) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+            out.writeInt(node.conflicts.size());
+            for (Map.Entry<K, VersionProperty<V>> entry : node.conflicts.entries()) {
+                writeProperty(entry.getKey(), entry.getValue(), out);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private Checkpoint<K, V, T> decode(ByteBuffer in) {
+        long logPosition = in.getLong();
+        int labelCount = in.getInt();
+        RevisionIndex index = new RevisionIndex();
+        for (int i=0; i < labelCount; i++) {
+            Revision revision = AbstractVersionCodec.readRevision(in);
+            index = index.put(revision, in.getInt(), in.getInt());
+        }
+        int nodeCount = in.getInt();
+        List<Checkpoint.Node<K, V, T>> nodes = Lists.newArrayListWithCapacity(nodeCount);
+        Map<Revision, PersistentHashMap<K, VersionProperty<V>>> mergedProperties = Maps.newHashMap();
+        for (int i=0; i < nodeCount; i++) {
+            int length = in.getInt();
+            ByteBuffer versionBytes = in.slice();
+            versionBytes.limit(length);
+            in.position(in.position() + length);
+            T version = codec.decode(versionBytes);
+
+            MutableHashMap<K, VersionProperty<V>> properties = parentProperties(version, mergedProperties).toMutableMap();
+            int changeCount = in.getInt();
+            for (int j=0; j < changeCount; j++) {
+                K key = codec.readKey(in);
+                properties.put(key, readProperty(in, index));
+            }
+            int removalCount = in.getInt();
+            for (int j=0; j < removalCount; j++) {
+                properties.remove(codec.readKey(in));
+            }
+            PersistentHashMap<K, VersionProperty<V>> persistentProperties = properties.toPersistentMap();
+            mergedProperties.put(version.revision, persistentProperties);
+            int chainCount = in.getInt();
+            MutableHashMap<Integer, Integer> chains = new MutableHashMap<>(chainCount);
+            for (int j=0; j < chainCount; j++) {
+                chains.put(in.getInt(), in.getInt());
+            }
+            int conflictCount = in.getInt();
+            ImmutableListMultimap.Builder<K, VersionProperty<V>> conflicts = ImmutableListMultimap.builder();
+            for (int j=0; j < conflictCount; j++) {
+                K key = codec.readKey(in);
+                conflicts.put(key, readProperty(in, index));
+            }
+            nodes.add(new Checkpoint.Node<K, V, T>(version, persistentProperties, new RevisionSet(index, chains.toPersistentMap()), conflicts.build()));
+        }
+        return new Checkpoint<K, V, T>(nodes, index, logPosition);
+    }
+
+    private PersistentHashMap<K, VersionProperty<V>> parentProperties(T version, Map<Revision, PersistentHashMap<K, VersionProperty<V>>> mergedProperties) {
+        Revision parent = getFirst(version.parentRevisions, null);
+        PersistentHashMap<K, VersionProperty<V>> properties = parent != null ? mergedProperties.get(parent) : null;
+        return properties != null ? properties : PersistentHashMap.<K, VersionProperty<V>> empty();
+    }
+
+    private void writeProperty(K key, VersionProperty<V> property, ByteArrayDataOutput out) {
+        codec.writeKey(key, out);
+        AbstractVersionCodec.writeRevision(property.revision, out);
+        codec.writeValue(property.value, out);
+    }
+
+    private VersionProperty<V> readProperty(ByteBuffer in, RevisionIndex index) {
+        Revision revision = AbstractVersionCodec.readRevision(in);
+        return new VersionProperty<V>(revision, index.find(revision), codec.readValue(in));
+    }
+
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.store;
+
+import static java.lang.String.format;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.javersion.core.Version;
+import org.javersion.core.VersionLog;
+import org.javersion.util.Check;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Segmented, append-only file log of versions.
+ *
+ * <pre>
+ * segment: record*
+ * record: length(int) crc32(int) payload(byte[length])
+ * payload: count(int) (versionLength(int) version)*
+ * </pre>
+ *
+ * Each append is written as a single record, so a batch of versions is
+ * either found whole or not at all. Appends go through a FileChannel of the
+ * active segment. A new segment is started once the active one would grow
+ * beyond segmentSize, which is limited to {@link Integer#MAX_VALUE} as
+ * segments are mapped as a whole. Iteration maps segments read-only and
+ * decodes versions lazily, one record at a time. A torn record at the end
+ * of the active segment is truncated on open.
+ * <p>
+ * Positions encode the segment index in the upper bits and the offset
+ * within the segment in the lower {@value #OFFSET_BITS} bits.
+ */
+public class FileVersionLog<K, V, T extends Version<K, V>> implements VersionLog<K, V, T>, Closeable {
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final String SUFFIX = ".log";
+
+    private static final int HEADER_SIZE = 8;
+
+    static final int OFFSET_BITS = 40;
+
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+    private final Path directory;
+
+    private final VersionCodec<T> codec;
+
+    private final long segmentSize;
+
+    private final boolean sync;
+
+    private final List<Path> segments = Lists.newArrayList();
+
+    private FileChannel channel;
+
+    private long position;
+
+    public FileVersionLog(Path directory, VersionCodec<T> codec) {
+        this(directory, codec, DEFAULT_SEGMENT_SIZE, true);
+    }
+
+    public FileVersionLog(Path directory, VersionCodec<T> codec, long segmentSize, boolean sync) {
+        this.directory = Check.notNull(directory, "directory");
+        this.codec = Check.notNull(codec, "codec");
+        Check.that(segmentSize > HEADER_SIZE, "segmentSize should be greater than %s", HEADER_SIZE);
+        Check.that(segmentSize <= Integer.MAX_VALUE, "segmentSize should not be greater than %s", Integer.MAX_VALUE);
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+        try {
+            Files.createDirectories(directory);
+            segments.addAll(listSegments(directory));
+            if (segments.isEmpty()) {
+                segments.add(segmentPath(0));
+            }
+            openActiveSegment();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public synchronized void append(Iterable<T> versions) {
+        ensureOpen();
+        if (Iterables.isEmpty(versions)) {
+            return;
+        }
+        ByteBuffer record = toRecord(versions);
+        try {
+            if (position > 0 && position + record.remaining() > segmentSize) {
+                rollSegment();
+            }
+            write(record);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Position is moved only after the whole record is written (and synced).
+     * On failure the partially written record is truncated if possible and
+     * otherwise left for recovery to discard.
+     */
+    private void write(ByteBuffer record) throws IOException {
+        long end = position;
+        try {
+            while (record.hasRemaining()) {
+                end += channel.write(record, end);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                channel.truncate(position);
+            } catch (IOException | RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        position = end;
+    }
+
+    @Override
+    public synchronized long position() {
+        return (long) (segments.size() - 1) << OFFSET_BITS | position;
+    }
+
+    @Override
+    public Iterable<T> from(final long position) {
+        Check.that(position >= 0, "position should not be negative");
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return iteratorFrom(position);
+            }
+        };
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return iteratorFrom(0);
+    }
+
+    private Iterator<T> iteratorFrom(long from) {
+        final List<Path> paths;
+        final long activeLimit;
+        synchronized (this) {
+            ensureOpen();
+            paths = ImmutableList.copyOf(segments);
+            activeLimit = position;
+        }
+        final int firstSegment = (int) (from >>> OFFSET_BITS);
+        final long firstOffset = from & OFFSET_MASK;
+        return new AbstractIterator<T>() {
+
+            private int segment = firstSegment - 1;
+
+            private ByteBuffer buffer;
+
+            private int remaining;
+
+            @Override
+            protected T computeNext() {
+                while (remaining == 0) {
+                    while (buffer == null || !buffer.hasRemaining()) {
+                        if (++segment >= paths.size()) {
+                            return endOfData();
+                        }
+                        boolean active = segment == paths.size() - 1;
+                        buffer = map(paths.get(segment), active ? activeLimit : -1);
+                        if (segment == firstSegment) {
+                            buffer.position((int) Math.min(firstOffset, buffer.limit()));
+                        }
+                    }
+                    buffer.getInt(); // length
+                    buffer.getInt(); // crc, verified on recovery
+                    remaining = buffer.getInt();
+                }
+                remaining--;
+                return codec.decode(slice(buffer));
+            }
+
+        };
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        ByteBuffer payload = buffer.slice();
+        payload.limit(length);
+        buffer.position(buffer.position() + length);
+        return payload;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private ByteBuffer toRecord(Iterable<T> versions) {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        List<byte[]> encoded = Lists.newArrayList();
+        for (T version : versions) {
+            ByteArrayDataOutput versionOut = ByteStreams.newDataOutput();
+            codec.encode(version, versionOut);
+            encoded.add(versionOut.toByteArray());
+        }
+        out.writeInt(encoded.size());
+        for (byte[] bytes : encoded) {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        byte[] payload = out.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        record.flip();
+        return record;
+    }
+
+    private void rollSegment() throws IOException {
+        channel.close();
+        segments.add(segmentPath(segments.size()));
+        openActiveSegment();
+    }
+
+    private void openActiveSegment() throws IOException {
+        channel = FileChannel.open(segments.get(segments.size() - 1), CREATE, READ, WRITE);
+        position = recover(channel);
+        if (position < channel.size()) {
+            channel.truncate(position);
+        }
+    }
+
+    /**
+     * @return the end of the last intact record.
+     */
+    private static long recover(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return 0;
+        }
+        MappedByteBuffer buffer = channel.map(READ_ONLY, 0, size);
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                return start;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                return start;
+            }
+        }
+        return buffer.position();
+    }
+
+    private static ByteBuffer map(Path path, long limit) {
+        try (FileChannel readChannel = FileChannel.open(path, READ)) {
+            long size = limit < 0 ? readChannel.size() : limit;
+            return readChannel.map(READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(format("%08d%s", index, SUFFIX));
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> paths = Lists.newArrayList();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private void ensureOpen() {
+        if (channel == null) {
+            throw new IllegalStateException("VersionLog is closed");
+        }
+    }
+
+}
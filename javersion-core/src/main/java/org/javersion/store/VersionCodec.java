@@ -0,0 +1,33 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.store;
+
+import java.nio.ByteBuffer;
+
+import org.javersion.core.Version;
+
+import com.google.common.io.ByteArrayDataOutput;
+
+public interface VersionCodec<T extends Version<?, ?>> {
+
+    void encode(T version, ByteArrayDataOutput out);
+
+    /**
+     * @param in buffer positioned at the start of an encoded version and limited to its end.
+     */
+    T decode(ByteBuffer in);
+
+}
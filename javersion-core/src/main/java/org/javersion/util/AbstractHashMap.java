@@ -18,12 +18,15 @@ package org.javersion.util;
 import static com.google.common.base.Objects.equal;
 import static com.google.common.collect.Iterators.transform;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.Map;
 
 import org.javersion.util.AbstractHashMap.Entry;
 
 import com.google.common.base.Function;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterables;
 
 public abstract class AbstractHashMap<K, V, This extends AbstractHashMap<K, V, This>> 
@@ -77,9 +80,18 @@ public abstract class AbstractHashMap<K, V, This extends AbstractHashMap<K, V, T
         return (This) doAddAll(updateContext, transform(map.entrySet().iterator(), TO_ENTRY));
     }
 
+    /**
+     * If entries is a PersistentHashMap, the maps are merged structurally
+     * skipping subtrees shared by both maps. Merger is not called for shared entries.
+     * Nodes of a mutable map may still be edited in place, so they are never shared
+     * but copied entry by entry.
+     */
     @SuppressWarnings("unchecked")
     public This mergeAll(Iterable<Map.Entry<K, V>> entries, Merger<Map.Entry<K, V>> merger) {
         final UpdateContext<Map.Entry<K, V>> updateContext = updateContext(32, merger);
+        if (entries instanceof PersistentHashMap) {
+            return (This) doMergeAll(updateContext, (PersistentHashMap<K, V>) entries);
+        }
         return (This) doAddAll(updateContext, transform(entries.iterator(), TO_ENTRY));
     }
     
@@ -88,6 +100,27 @@ public abstract class AbstractHashMap<K, V, This extends AbstractHashMap<K, V, T
     }
 
     
+    /**
+     * Reports entries that differ between this (old) and other (new) map. Cost is
+     * proportional to the changes as subtrees shared by both maps are skipped.
+     */
+    public void diff(AbstractHashMap<K, V, ?> other, DiffHandler<Map.Entry<K, V>> handler) {
+        doDiff(other, MapUtils.valueDiffHandler(handler));
+    }
+
+    /**
+     * Lazy form of {@link #diff(AbstractHashMap, DiffHandler)}: changes are
+     * resolved as the result is iterated.
+     */
+    public Iterable<MapChange<K, V>> diff(final AbstractHashMap<K, V, ?> other) {
+        return new Iterable<MapChange<K, V>>() {
+            @Override
+            public Iterator<MapChange<K, V>> iterator() {
+                return new DiffIterator<>(diffWalker(other));
+            }
+        };
+    }
+
     public This dissoc(Object key) {
         return dissoc(key, null);
     }
@@ -165,4 +198,42 @@ public abstract class AbstractHashMap<K, V, This extends AbstractHashMap<K, V, T
             }
         }
     }
-}
\ No newline at end of file
+
+    private static class DiffIterator<K, V> extends AbstractIterator<MapChange<K, V>> implements DiffHandler<Map.Entry<K, V>> {
+
+        private final DiffWalker<K, Entry<K, V>> walker;
+
+        private final Deque<MapChange<K, V>> buffer = new ArrayDeque<>();
+
+        private final DiffHandler<Map.Entry<K, V>> handler = MapUtils.valueDiffHandler(this);
+
+        DiffIterator(DiffWalker<K, Entry<K, V>> walker) {
+            this.walker = walker;
+        }
+
+        @Override
+        protected MapChange<K, V> computeNext() {
+            while (buffer.isEmpty()) {
+                if (!walker.step(handler)) {
+                    return endOfData();
+                }
+            }
+            return buffer.removeFirst();
+        }
+
+        @Override
+        public void insert(Map.Entry<K, V> newEntry) {
+            buffer.addLast(new MapChange<K, V>(null, newEntry));
+        }
+
+        @Override
+        public void update(Map.Entry<K, V> oldEntry, Map.Entry<K, V> newEntry) {
+            buffer.addLast(new MapChange<K, V>(oldEntry, newEntry));
+        }
+
+        @Override
+        public void delete(Map.Entry<K, V> oldEntry) {
+            buffer.addLast(new MapChange<K, V>(oldEntry, null));
+        }
+    }
+}
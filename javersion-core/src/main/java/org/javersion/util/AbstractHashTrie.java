@@ -18,6 +18,8 @@ package org.javersion.util;
 import static com.google.common.base.Objects.equal;
 import static java.lang.System.arraycopy;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -80,6 +82,135 @@ public abstract class AbstractHashTrie<K, E extends Entry<K, E>, This extends Ab
         return commitAndReturn(updateContext, newRoot, size);
     }
         
+    /**
+     * Merges all entries of other into this trie by walking both tries together.
+     * Subtrees shared by both tries (same node instance) are skipped altogether
+     * so that the cost is proportional to the divergence of the tries instead of
+     * their size. Merger is not called for shared entries.
+     */
+    protected final This doMergeAll(UpdateContext<? super E> updateContext, AbstractHashTrie<K, E, ?> other) {
+        NodeMerger<K, E> nodeMerger = new NodeMerger<K, E>(updateContext);
+        Node<K, E> newRoot = nodeMerger.merge(root(), other.root(), 0);
+        return commitAndReturn(updateContext, newRoot, size() + nodeMerger.change);
+    }
+
+    /**
+     * Walks this (old) and other (new) trie together reporting differing entries.
+     * Subtrees shared by both tries are skipped. Entries with equal keys are
+     * reported as updates if they are not the same instance.
+     */
+    protected final void doDiff(AbstractHashTrie<K, E, ?> other, DiffHandler<? super E> handler) {
+        DiffWalker<K, E> walker = diffWalker(other);
+        while (walker.step(handler)) {
+        }
+    }
+
+    /**
+     * Resumable form of {@link #doDiff(AbstractHashTrie, DiffHandler)}: each step
+     * reports the differences of at most one leaf of both tries.
+     */
+    protected final DiffWalker<K, E> diffWalker(AbstractHashTrie<K, E, ?> other) {
+        return new DiffWalker<K, E>(root(), other.root());
+    }
+
+    protected static final class DiffWalker<K, E extends Entry<K, E>> {
+
+        private final Deque<Frame<K, E>> frames = new ArrayDeque<>();
+
+        DiffWalker(Node<K, E> oldRoot, Node<K, E> newRoot) {
+            push(oldRoot == EMPTY_NODE ? null : oldRoot, newRoot == EMPTY_NODE ? null : newRoot, 0);
+        }
+
+        /**
+         * @return false if there are no more differences.
+         */
+        public boolean step(DiffHandler<? super E> handler) {
+            Frame<K, E> frame = frames.poll();
+            if (frame == null) {
+                return false;
+            }
+            Node<K, E> oldNode = frame.oldNode;
+            Node<K, E> newNode = frame.newNode;
+            int shift = frame.shift;
+            if (isBranch(oldNode) || isBranch(newNode)) {
+                for (int i=31; i >= 0; i--) {
+                    push(child(oldNode, i, shift), child(newNode, i, shift), shift + Node.SHIFT_INCREMENT);
+                }
+            } else if (newNode == null) {
+                for (E oldEntry : oldNode) {
+                    handler.delete(oldEntry);
+                }
+            } else if (oldNode == null) {
+                for (E newEntry : newNode) {
+                    handler.insert(newEntry);
+                }
+            } else {
+                for (E oldEntry : oldNode) {
+                    E newEntry = newNode.findInternal(shift, oldEntry.getHash(), oldEntry.key);
+                    if (newEntry == null) {
+                        handler.delete(oldEntry);
+                    } else if (newEntry != oldEntry) {
+                        handler.update(oldEntry, newEntry);
+                    }
+                }
+                for (E newEntry : newNode) {
+                    if (oldNode.findInternal(shift, newEntry.getHash(), newEntry.key) == null) {
+                        handler.insert(newEntry);
+                    }
+                }
+            }
+            return true;
+        }
+
+        private static final class Frame<K, E extends Entry<K, E>> {
+            final Node<K, E> oldNode;
+            final Node<K, E> newNode;
+            final int shift;
+            Frame(Node<K, E> oldNode, Node<K, E> newNode, int shift) {
+                this.oldNode = oldNode;
+                this.newNode = newNode;
+                this.shift = shift;
+            }
+        }
+
+        private void push(Node<K, E> oldNode, Node<K, E> newNode, int shift) {
+            if (oldNode != newNode) {
+                frames.push(new Frame<>(oldNode, newNode, shift));
+            }
+        }
+
+        /**
+         * Child of a branch or the node itself if a leaf node belongs to given index.
+         */
+        private static <K, E extends Entry<K, E>> Node<K, E> child(Node<K, E> node, int index, int shift) {
+            if (node == null) {
+                return null;
+            } else if (isBranch(node)) {
+                return AbstractHashTrie.child(node, index);
+            } else {
+                int hash = node instanceof CollisionNode ? ((CollisionNode<K, E>) node).hash : ((Entry<K, E>) node).getHash();
+                return Node.bitIndex(hash, shift) == index ? node : null;
+            }
+        }
+    }
+
+    private static boolean isBranch(Node<?, ?> node) {
+        return node instanceof HashNode || node instanceof ArrayNode;
+    }
+
+    private static <K, E extends Entry<K, E>> Node<K, E> child(Node<K, E> node, int index) {
+        if (node instanceof ArrayNode) {
+            return ((ArrayNode<K, E>) node).children[index];
+        } else {
+            HashNode<K, E> hashNode = (HashNode<K, E>) node;
+            int bit = 1 << index;
+            if ((hashNode.bitmap & bit) == 0) {
+                return null;
+            }
+            return hashNode.children[Node.index(hashNode.bitmap, bit)];
+        }
+    }
+
     protected final This doRemove(UpdateContext<? super E> updateContext, Object key) {
         Node<K, E> newRoot = root().dissoc(updateContext, key);
         return commitAndReturn(updateContext, newRoot, size() + updateContext.getChangeAndReset());
@@ -89,6 +220,84 @@ public abstract class AbstractHashTrie<K, E extends Entry<K, E>, This extends Ab
         updateContext.commit();
     }
     
+    private static final class NodeMerger<K, E extends Entry<K, E>> {
+
+        final UpdateContext<? super E> updateContext;
+
+        int change = 0;
+
+        NodeMerger(UpdateContext<? super E> updateContext) {
+            this.updateContext = updateContext;
+        }
+
+        Node<K, E> merge(Node<K, E> oldNode, Node<K, E> newNode, int shift) {
+            if (oldNode == newNode || newNode == EMPTY_NODE) {
+                return oldNode;
+            } else if (oldNode == EMPTY_NODE) {
+                return insertAll(newNode);
+            } else if (isBranch(oldNode) && isBranch(newNode)) {
+                return mergeBranches(oldNode, newNode, shift);
+            } else {
+                Node<K, E> result = oldNode;
+                for (E entry : newNode) {
+                    result = result.assocInternal(updateContext, shift, entry.getHash(), entry);
+                    change += updateContext.getChangeAndReset();
+                }
+                return result;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node<K, E> mergeBranches(Node<K, E> oldNode, Node<K, E> newNode, int shift) {
+            Node<K, E>[] children = new Node[32];
+            int childCount = 0;
+            boolean changed = false;
+            for (int i=0; i < 32; i++) {
+                Node<K, E> oldChild = child(oldNode, i);
+                Node<K, E> newChild = child(newNode, i);
+                Node<K, E> child;
+                if (newChild == null) {
+                    child = oldChild;
+                } else if (oldChild == null) {
+                    child = insertAll(newChild);
+                } else {
+                    child = merge(oldChild, newChild, shift + Node.SHIFT_INCREMENT);
+                }
+                if (child != oldChild) {
+                    changed = true;
+                }
+                if (child != null) {
+                    children[i] = child;
+                    childCount++;
+                }
+            }
+            if (!changed) {
+                return oldNode;
+            } else if (childCount >= 16) {
+                return new ArrayNode<K, E>(updateContext, children, childCount);
+            } else {
+                Node<K, E>[] compact = new Node[childCount];
+                int bitmap = 0;
+                for (int i=0, j=0; i < 32; i++) {
+                    if (children[i] != null) {
+                        compact[j++] = children[i];
+                        bitmap |= 1 << i;
+                    }
+                }
+                return new HashNode<K, E>(updateContext, bitmap, compact);
+            }
+        }
+
+        private Node<K, E> insertAll(Node<K, E> node) {
+            for (E entry : node) {
+                updateContext.insert(entry);
+                change++;
+            }
+            updateContext.getChangeAndReset();
+            return node;
+        }
+    }
+
     static abstract class Node<K, E extends Entry<K, E>> implements Iterable<E> {
         
         static final int SHIFT_INCREMENT = 5;
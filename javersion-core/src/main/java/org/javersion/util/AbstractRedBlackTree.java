@@ -155,6 +155,74 @@ public abstract class AbstractRedBlackTree<K, N extends Node<K, N>, This extends
         return new RangeIterator<K, N>(root, asc, comparator, from, fromInclusive, to, toInclusive);
     }
 
+    /**
+     * Walks oldRoot and newRoot together in key order reporting differing nodes.
+     * Subtrees shared by both trees are skipped. Nodes with equal keys are
+     * reported as updates if they are not the same instance.
+     */
+    protected final void doDiff(N oldRoot, N newRoot, DiffHandler<? super N> handler) {
+        DiffCursor<K, N> from = new DiffCursor<K, N>(oldRoot);
+        DiffCursor<K, N> to = new DiffCursor<K, N>(newRoot);
+        while (!from.isEmpty() && !to.isEmpty()) {
+            if (from.isSubtree() && to.isSubtree()) {
+                N oldNode = from.top();
+                N newNode = to.top();
+                if (oldNode == newNode) {
+                    from.pop();
+                    to.pop();
+                } else {
+                    // A subtree can only be found within a subtree of higher rank
+                    int oldRank = rank(oldNode);
+                    int newRank = rank(newNode);
+                    if (oldRank >= newRank) {
+                        from.expand();
+                    }
+                    if (newRank >= oldRank) {
+                        to.expand();
+                    }
+                }
+            } else {
+                N oldNode = from.nextNode();
+                N newNode = to.nextNode();
+                int cmpr = comparator.compare(oldNode.key, newNode.key);
+                if (cmpr < 0) {
+                    handler.delete(oldNode);
+                    from.pop();
+                } else if (cmpr > 0) {
+                    handler.insert(newNode);
+                    to.pop();
+                } else {
+                    if (oldNode != newNode) {
+                        handler.update(oldNode, newNode);
+                    }
+                    from.pop();
+                    to.pop();
+                }
+            }
+        }
+        while (!from.isEmpty()) {
+            handler.delete(from.nextNode());
+            from.pop();
+        }
+        while (!to.isEmpty()) {
+            handler.insert(to.nextNode());
+            to.pop();
+        }
+    }
+
+    /**
+     * Strictly decreasing from a parent to its children: 2 * black height + 1 if red.
+     */
+    private static int rank(Node<?, ?> node) {
+        int rank = isRed(node) ? 1 : 0;
+        for (Node<?, ?> n = node; n != null; n = n.left) {
+            if (isBlack(n)) {
+                rank += 2;
+            }
+        }
+        return rank;
+    }
+
     protected final This doRemove(UpdateContext<? super N> context, N root, Object keyObj) {
         @SuppressWarnings("unchecked")
         K key = (K) keyObj;
@@ -556,6 +624,61 @@ public abstract class AbstractRedBlackTree<K, N extends Node<K, N>, This extends
         }
     }
 
+    /**
+     * Pending nodes in key order. A pending node is either a whole subtree or a
+     * single node whose left subtree has already been expanded.
+     */
+    private static final class DiffCursor<K, N extends Node<K, N>> {
+
+        private final Deque<N> nodes = new ArrayDeque<N>();
+
+        private final Deque<Boolean> subtrees = new ArrayDeque<Boolean>();
+
+        DiffCursor(N root) {
+            pushSubtree(root);
+        }
+
+        boolean isEmpty() {
+            return nodes.isEmpty();
+        }
+
+        boolean isSubtree() {
+            return subtrees.peek();
+        }
+
+        N top() {
+            return nodes.peek();
+        }
+
+        void pop() {
+            nodes.pop();
+            subtrees.pop();
+        }
+
+        void expand() {
+            N node = nodes.pop();
+            subtrees.pop();
+            pushSubtree(node.right);
+            nodes.push(node);
+            subtrees.push(Boolean.FALSE);
+            pushSubtree(node.left);
+        }
+
+        N nextNode() {
+            while (isSubtree()) {
+                expand();
+            }
+            return nodes.peek();
+        }
+
+        private void pushSubtree(N node) {
+            if (node != null) {
+                nodes.push(node);
+                subtrees.push(Boolean.TRUE);
+            }
+        }
+    }
+
     static abstract class AbstractRBIterator<K, N extends Node<K, N>> extends UnmodifiableIterator<N> {
 
         final Deque<N> stack = new ArrayDeque<N>();
@@ -108,6 +108,15 @@ public abstract class AbstractTreeMap<K, V, This extends AbstractTreeMap<K, V, T
         return doRemove(context, root(), key);
     }
 
+    /**
+     * Reports entries that differ between this (old) and other (new) map in key order.
+     * Cost is proportional to the changes as subtrees shared by both maps are skipped.
+     */
+    public void diff(AbstractTreeMap<K, V, ?> other, DiffHandler<Map.Entry<K, V>> handler) {
+        Check.that(comparator.equals(other.comparator), "Cannot diff maps with different comparators");
+        doDiff(root(), other.root(), MapUtils.valueDiffHandler(handler));
+    }
+
     public boolean containsKey(Object key) {
         return find(root(), key) != null;
     }
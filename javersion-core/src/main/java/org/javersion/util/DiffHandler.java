@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.util;
+
+public interface DiffHandler<T> {
+
+    /**
+     * Entry found only in the new collection.
+     */
+    public void insert(T newEntry);
+
+    /**
+     * Entry with same key but different value.
+     */
+    public void update(T oldEntry, T newEntry);
+
+    /**
+     * Entry found only in the old collection.
+     */
+    public void delete(T oldEntry);
+
+}
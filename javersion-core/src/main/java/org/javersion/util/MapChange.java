@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.util;
+
+import java.util.Map;
+
+/**
+ * Difference of a single key between two maps. Old entry is null for inserts
+ * and new entry for deletes.
+ */
+public final class MapChange<K, V> {
+
+    public final Map.Entry<K, V> oldEntry;
+
+    public final Map.Entry<K, V> newEntry;
+
+    public MapChange(Map.Entry<K, V> oldEntry, Map.Entry<K, V> newEntry) {
+        Check.that(oldEntry != null || newEntry != null, "Both oldEntry and newEntry cannot be null");
+        this.oldEntry = oldEntry;
+        this.newEntry = newEntry;
+    }
+
+    public K getKey() {
+        return newEntry != null ? newEntry.getKey() : oldEntry.getKey();
+    }
+
+    public V getOldValue() {
+        return oldEntry != null ? oldEntry.getValue() : null;
+    }
+
+    public V getNewValue() {
+        return newEntry != null ? newEntry.getValue() : null;
+    }
+
+    public String toString() {
+        return getKey() + ": " + getOldValue() + " -> " + getNewValue();
+    }
+}
@@ -4,6 +4,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import com.google.common.base.Function;
+import com.google.common.base.Objects;
 
 public class MapUtils {
 
@@ -45,4 +46,28 @@ public class MapUtils {
     public static <V> Function<Map.Entry<?, V>, V> mapValueFunction() {
         return GET_VALUE;
     };
+
+    /**
+     * Filters out updates where values are equal.
+     */
+    public static <K, V> DiffHandler<Map.Entry<K, V>> valueDiffHandler(final DiffHandler<Map.Entry<K, V>> handler) {
+        return new DiffHandler<Map.Entry<K, V>>() {
+            @Override
+            public void insert(Map.Entry<K, V> newEntry) {
+                handler.insert(newEntry);
+            }
+
+            @Override
+            public void update(Map.Entry<K, V> oldEntry, Map.Entry<K, V> newEntry) {
+                if (!Objects.equal(oldEntry.getValue(), newEntry.getValue())) {
+                    handler.update(oldEntry, newEntry);
+                }
+            }
+
+            @Override
+            public void delete(Map.Entry<K, V> oldEntry) {
+                handler.delete(oldEntry);
+            }
+        };
+    }
 }
@@ -6,6 +6,7 @@ import static org.javersion.core.Diff.diff;
 import static org.junit.Assert.*;
 import static org.hamcrest.Matchers.*;
 
+import org.javersion.util.PersistentHashMap;
 import org.junit.Test;
 
 import com.google.common.collect.Maps;
@@ -60,6 +61,14 @@ public class DiffTest {
         assertThat(diff, equalTo(map(1,null, 2,null, 3,3, 4,4, 5,5)));
     }
 
+    @Test
+    public void Persistent_Maps() {
+        PersistentHashMap<Object, Object> from = PersistentHashMap.copyOf(map(1,1, 2,2, 3,3, 4,null));
+        PersistentHashMap<Object, Object> to = from.assoc(1, 0).dissoc(2).dissoc(4).assoc(5, 5).assoc(6, null);
+        assertThat(diff(from, to), equalTo(map(1,0, 2,null, 5,5)));
+        assertThat(diff(to, to).entrySet(), empty());
+    }
+
     private static Map<Object, Object> map(Object... keysAndValues) {
         if (keysAndValues.length % 2 != 0) {
             throw new IllegalArgumentException("Expected even keysAndValues.size()");
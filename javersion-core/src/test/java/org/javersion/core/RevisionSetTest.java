@@ -0,0 +1,101 @@
+package org.javersion.core;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+public class RevisionSetTest {
+
+    private RevisionIndex index = new RevisionIndex();
+
+    @Test
+    public void Linear_History_Is_A_Single_Chain() {
+        Revision parent = null;
+        RevisionSet set = RevisionSet.empty();
+        for (int i=0; i < 100; i++) {
+            Revision revision = new Revision();
+            index = index.add(revision, parent);
+            set = set.with(revision, index);
+            parent = revision;
+        }
+        assertThat(set.chains.size(), equalTo(1));
+        assertThat(set.asSet().size(), equalTo(100));
+        assertThat(index.size(), equalTo(100));
+        assertThat(index.revision(99), equalTo(parent));
+    }
+
+    @Test
+    public void Branches_And_Merges() {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        Revision r3 = new Revision();
+        Revision r4 = new Revision();
+
+        RevisionSet s1 = add(RevisionSet.empty(), r1, null);
+        RevisionSet s2 = add(s1, r2, r1);
+        // r3 forks from r1, r2 already continues r1's chain
+        RevisionSet s3 = add(s1, r3, r1);
+        assertThat(index.chain(index.ordinal(r3)), not(equalTo(index.chain(index.ordinal(r2)))));
+
+        assertThat(s2.contains(r3), equalTo(false));
+        assertThat(s3.contains(r2), equalTo(false));
+        assertThat(s3.asSet(), equalTo((Object) ImmutableSet.of(r1, r3)));
+
+        RevisionSet s4 = add(s2.union(s3), r4, r2);
+        assertThat(s4.asSet(), equalTo((Object) ImmutableSet.of(r1, r2, r3, r4)));
+        assertThat(s4.union(s3), equalTo(s4));
+    }
+
+    @Test
+    public void Unknown_Revision_Is_Not_Contained() {
+        RevisionSet set = add(RevisionSet.empty(), new Revision(), null);
+        assertThat(set.contains(new Revision()), equalTo(false));
+        assertThat(RevisionSet.empty().contains(new Revision()), equalTo(false));
+    }
+
+    @Test
+    public void Forks_Do_Not_Share_Labels() {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        Revision r3 = new Revision();
+        RevisionIndex base = new RevisionIndex().add(r1, null).add(r2, r1);
+
+        // Same revision with different first parents in two forks
+        RevisionIndex fork1 = base.add(r3, r2);
+        RevisionIndex fork2 = base.add(r3, r1);
+        assertThat(fork1.position(fork1.ordinal(r3)), equalTo(2));
+        assertThat(fork2.position(fork2.ordinal(r3)), equalTo(0));
+        assertThat(base.contains(r3), equalTo(false));
+
+        RevisionSet s1 = RevisionSet.empty().with(r1, fork2).with(r3, fork2);
+        assertThat(s1.contains(r2), equalTo(false));
+        assertThat(s1.asSet(), equalTo((Object) ImmutableSet.of(r1, r3)));
+        assertThat(base.isPrefixOf(fork1), equalTo(true));
+        assertThat(fork1.isPrefixOf(fork2), equalTo(false));
+    }
+
+    @Test
+    public void Ordinal_Of_Sibling_Fork_Is_Verified() {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        Revision r3 = new Revision();
+        RevisionIndex base = new RevisionIndex().add(r1, null);
+        RevisionIndex fork1 = base.add(r2, r1);
+        RevisionIndex fork2 = base.add(r3, r1);
+        assertThat(fork1.ordinal(r2), equalTo(fork2.ordinal(r3)));
+
+        RevisionSet set = RevisionSet.empty().with(r1, fork2).with(r3, fork2);
+        VersionProperty<String> property = new VersionProperty<>(r2, fork1.ordinal(r2), "value");
+        assertThat(set.contains(property), equalTo(false));
+        assertThat(set.contains(new VersionProperty<>(r3, fork2.ordinal(r3), "value")), equalTo(true));
+    }
+
+    private RevisionSet add(RevisionSet parents, Revision revision, Revision firstParent) {
+        index = index.add(revision, firstParent);
+        return parents.with(revision, index);
+    }
+}
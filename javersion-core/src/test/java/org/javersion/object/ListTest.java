@@ -15,6 +15,7 @@ import org.javersion.object.PolymorphismTest.Pet;
 import org.javersion.path.PropertyPath;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 public class ListTest {
@@ -51,4 +52,17 @@ public class ListTest {
         assertThat(owner.pets.get(2), nullValue());
     }
 
+    @Test
+    public void Read_Projection() {
+        Owner owner = new Owner();
+        owner.pets = Lists.newArrayList(new Cat("Mirri"), new Dog("Musti"));
+        Map<PropertyPath, Object> map = serializer.toPropertyMap(owner);
+
+        owner = serializer.fromPropertyMap(map, ImmutableSet.of(PropertyPath.parse("pets[1]")));
+        assertThat(owner.pets, hasSize(2));
+        assertThat(owner.pets.get(0), nullValue());
+        assertThat(owner.pets.get(1), instanceOf(Dog.class));
+        assertThat(owner.pets.get(1).name, equalTo("Musti"));
+    }
+
 }
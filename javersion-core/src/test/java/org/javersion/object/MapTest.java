@@ -3,6 +3,7 @@ package org.javersion.object;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 import org.javersion.path.PropertyPath;
@@ -63,6 +64,15 @@ public class MapTest {
         assertThat(mab.objects, equalTo(map(kv, kv, new KeyValue(789), new KeyValue(234), new KeyValue(890), null)));
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void Keys_With_Equal_Paths_Are_Rejected() {
+        Mab mab = new Mab();
+        mab.objects = new IdentityHashMap<>();
+        mab.objects.put(new KeyValue(123), new KeyValue(1));
+        mab.objects.put(new KeyValue(123), new KeyValue(2));
+        serializer.toPropertyMap(mab);
+    }
+
     @SuppressWarnings("unused")
     private static <K, V> Map<K, V> map(K k, V v) {
         Map<K, V> map = Maps.newLinkedHashMap();
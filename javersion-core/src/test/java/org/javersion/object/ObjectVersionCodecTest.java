@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 Samppa Saarela
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.javersion.object;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.javersion.path.PropertyPath.ROOT;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import org.javersion.core.Revision;
+import org.javersion.core.VersionType;
+import org.javersion.path.PropertyPath;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+public class ObjectVersionCodecTest {
+
+    @Test
+    public void Values_Round_Trip() {
+        Map<PropertyPath, Object> changeset = Maps.newLinkedHashMap();
+        changeset.put(ROOT, ObjectVersionCodecTest.class);
+        changeset.put(ROOT.property("null"), null);
+        changeset.put(ROOT.property("string"), "string");
+        changeset.put(ROOT.property("boolean"), true);
+        changeset.put(ROOT.property("byte"), (byte) 1);
+        changeset.put(ROOT.property("short"), (short) 2);
+        changeset.put(ROOT.property("int"), 3);
+        changeset.put(ROOT.property("long"), 4l);
+        changeset.put(ROOT.property("float"), 5.0f);
+        changeset.put(ROOT.property("double"), 6.0);
+        changeset.put(ROOT.property("char"), '7');
+        changeset.put(ROOT.property("bigInteger"), new BigInteger("-12345678901234567890"));
+        changeset.put(ROOT.property("bigDecimal"), new BigDecimal("1234567890.0987654321"));
+        changeset.put(ROOT.property("list").index(0).property("name"), "first");
+        changeset.put(ROOT.property("map").index("key with [.]"), "value");
+
+        ObjectVersionBuilder<Void> builder = new ObjectVersionBuilder<Void>(new Revision())
+                .branch("branch")
+                .type(VersionType.NORMAL)
+                .parents(ImmutableSet.of(new Revision(), new Revision()))
+                .changeset(changeset);
+        ObjectVersion<Void> version = new ObjectVersion<>(builder);
+
+        ObjectVersion<Void> decoded = roundTrip(version);
+        assertThat(decoded.revision, equalTo(version.revision));
+        assertThat(decoded.branch, equalTo(version.branch));
+        assertThat(decoded.type, equalTo(version.type));
+        assertThat(decoded.parentRevisions, equalTo(version.parentRevisions));
+        assertThat(decoded.changeset, equalTo(version.changeset));
+    }
+
+    @Test
+    public void Serialized_Object_Round_Trip() {
+        ObjectVersionManager<ObjectVersionManagerTest.Product, Void> versionManager =
+                new ObjectVersionManager<ObjectVersionManagerTest.Product, Void>(ObjectVersionManagerTest.Product.class).init();
+        ObjectVersionManagerTest.Product product = new ObjectVersionManagerTest.Product();
+        product.name = "name";
+        product.price = new BigDecimal("1.50");
+        product.status = ObjectVersionManagerTest.ProductStatus.IN_STOCK;
+        ObjectVersion<Void> version = versionManager.buildVersion(product).build();
+
+        assertThat(roundTrip(version).changeset, equalTo(version.changeset));
+    }
+
+    @Test
+    public void Classes_Are_Resolved_Through_Given_Loader() {
+        final List<String> loaded = Lists.newArrayList();
+        ClassLoader classLoader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                loaded.add(name);
+                return super.loadClass(name, resolve);
+            }
+        };
+        ObjectVersionCodec<Void> codec = new ObjectVersionCodec<>(classLoader);
+        ObjectVersionBuilder<Void> builder = new ObjectVersionBuilder<Void>(new Revision())
+                .changeset(ImmutableMap.<PropertyPath, Object> of(ROOT, ObjectVersionCodecTest.class));
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        codec.encode(new ObjectVersion<>(builder), out);
+
+        ObjectVersion<Void> decoded = codec.decode(ByteBuffer.wrap(out.toByteArray()));
+        assertThat(decoded.changeset.get(ROOT), equalTo((Object) ObjectVersionCodecTest.class));
+        assertThat(loaded, equalTo((List<String>) Lists.newArrayList(ObjectVersionCodecTest.class.getName())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Meta_Is_Not_Encoded_By_Default() {
+        ObjectVersionBuilder<Object> builder = new ObjectVersionBuilder<Object>(new Revision()).meta("meta");
+        new ObjectVersionCodec<Object>().encode(new ObjectVersion<>(builder), ByteStreams.newDataOutput());
+    }
+
+    private static ObjectVersion<Void> roundTrip(ObjectVersion<Void> version) {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        ObjectVersionCodec.INSTANCE.encode(version, out);
+        return ObjectVersionCodec.INSTANCE.decode(ByteBuffer.wrap(out.toByteArray()));
+    }
+}
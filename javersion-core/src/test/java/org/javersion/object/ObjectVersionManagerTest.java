@@ -13,13 +13,27 @@ import static org.javersion.util.ReflectionEquals.reflectionEquals;
 import static org.junit.Assert.assertThat;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.javersion.core.Revision;
 import org.javersion.core.Version;
+import org.javersion.object.ObjectVersionRepositoryTest.MemoryVersionLog;
+import org.javersion.object.PolymorphismTest.Cat;
+import org.javersion.object.PolymorphismTest.Dog;
+import org.javersion.object.PolymorphismTest.Pet;
+import org.javersion.path.PropertyPath;
 import org.joda.time.DateTime;
 import org.junit.Test;
 
+import com.google.common.collect.Lists;
+
 public class ObjectVersionManagerTest {
 
     public static enum ProductStatus {
@@ -36,6 +50,16 @@ public class ObjectVersionManagerTest {
         ProductStatus status;
     }
 
+    @Versionable
+    public static class Household {
+        List<Pet> pets;
+    }
+
+    private final ObjectSerializer<Household> householdSerializer = new ObjectSerializer<>(Household.class, TypeMappings.builder()
+            .withClass(Pet.class)
+            .havingSubClasses(Dog.class, Cat.class)
+            .build());
+
     private final ObjectVersionManager<Product, Void> versionManager = new ObjectVersionManager<Product, Void>(Product.class).init();
 
     @Test
@@ -122,6 +146,167 @@ public class ObjectVersionManagerTest {
         assertThat(product.price, equalTo(new BigDecimal("2.0")));
     }
 
+    @Test
+    public void Rebase_Onto_Moved_Heads() {
+        Product product = new Product();
+        product.name = "name";
+        product.price = new BigDecimal("1.0");
+        versionManager.buildVersion(product).build();
+
+        product.price = new BigDecimal("2.0");
+        ObjectVersionBuilder<Void> builder = versionManager.buildVersion(product).rebase();
+
+        // Concurrent change of name
+        Product concurrent = new Product();
+        concurrent.name = "name2";
+        concurrent.price = new BigDecimal("1.0");
+        Revision r2 = versionManager.buildVersion(concurrent).build().revision;
+
+        ObjectVersion<Void> version = builder.build();
+        assertThat(version.parentRevisions, equalTo(set(r2)));
+        assertThat(version.changeset.keySet(), equalTo(set(PropertyPath.ROOT.property("price"))));
+
+        MergeObject<Product> mergeObject = versionManager.mergeObject(DEFAULT_BRANCH);
+        assertThat(mergeObject.merge.getMergeHeads(), equalTo(set(version.revision)));
+        assertThat(mergeObject.object.name, equalTo("name2"));
+        assertThat(mergeObject.object.price, equalTo(new BigDecimal("2.0")));
+    }
+
+    @Test
+    public void Rebase_Conflict_Keeps_Parents() {
+        Product product = new Product();
+        product.name = "name";
+        Revision r1 = versionManager.buildVersion(product).build().revision;
+
+        product.name = "name2";
+        ObjectVersionBuilder<Void> builder = versionManager.buildVersion(product).rebase();
+
+        Product concurrent = new Product();
+        concurrent.name = "name3";
+        Revision r2 = versionManager.buildVersion(concurrent).build().revision;
+
+        ObjectVersion<Void> version = builder.build();
+        assertThat(version.parentRevisions, equalTo(set(r1)));
+
+        MergeObject<Product> mergeObject = versionManager.mergeObject(DEFAULT_BRANCH);
+        assertThat(mergeObject.merge.getMergeHeads(), equalTo(set(r2, version.revision)));
+        assertThat(mergeObject.merge.getConflicts().isEmpty(), equalTo(false));
+    }
+
+    @Test
+    public void Concurrent_Version_Keeps_Both_Heads() {
+        Product product = new Product();
+        product.name = "name";
+        Revision r1 = versionManager.buildVersion(product).build().revision;
+
+        product.name = "name2";
+        ObjectVersionBuilder<Void> builder = versionManager.buildVersion(product);
+
+        Product concurrent = new Product();
+        concurrent.name = "name3";
+        Revision r2 = versionManager.buildVersion(concurrent).build().revision;
+
+        ObjectVersion<Void> version = builder.build();
+        assertThat(version.parentRevisions, equalTo(set(r1)));
+        assertThat(versionManager.getHeads(), equalTo(set(r2, version.revision)));
+    }
+
+    @Test
+    public void Supplied_Revision_Is_Kept() {
+        Revision r1 = new Revision();
+        Product product = new Product();
+        product.name = "name";
+        Revision r2 = versionManager.buildVersion(product).build().revision;
+
+        product.name = "name2";
+        ObjectVersion<Void> version = versionManager.buildVersion(product, r1).build();
+        assertThat(version.revision, equalTo(r1));
+        assertThat(version.parentRevisions, equalTo(set(r2)));
+        assertThat(versionManager.getHeads(), equalTo(set(r1)));
+        assertThat(versionManager.getVersionGraph().getTip().getRevision(), equalTo(r2));
+
+        MergeObject<Product> mergeObject = versionManager.mergeObject(DEFAULT_BRANCH);
+        assertThat(mergeObject.merge.getMergeHeads(), equalTo(set(r1)));
+        assertThat(mergeObject.object.name, equalTo("name2"));
+    }
+
+    @Test
+    public void Concurrent_Commits() throws Exception {
+        concurrentCommits(versionManager, 4, 50);
+        assertThat(versionManager.getVersionGraph().versionNodes.size(), equalTo(4 * 50));
+    }
+
+    @Test
+    public void Concurrent_Commits_Are_Appended_Once() throws Exception {
+        MemoryVersionLog log = new MemoryVersionLog();
+        ObjectVersionManager<Product, Void> logManager = new ObjectVersionManager<Product, Void>(Product.class).init(ObjectVersionGraph.init(log));
+        concurrentCommits(logManager, 4, 50);
+
+        ObjectVersionGraph<Void> versionGraph = logManager.getVersionGraph();
+        assertThat(log.versions.size(), equalTo(4 * 50));
+        assertThat(versionGraph.versionNodes.size(), equalTo(4 * 50));
+        assertThat(versionGraph.getLogPosition(), equalTo(log.position()));
+        for (ObjectVersion<Void> version : log) {
+            assertThat(versionGraph.getVersionNode(version.revision).version, sameInstance(version));
+        }
+    }
+
+    private static void concurrentCommits(final ObjectVersionManager<Product, Void> versionManager, int threads, final int commits) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i=0; i < threads; i++) {
+            final String name = "thread-" + i;
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    Product product = new Product();
+                    for (int j=0; j < commits; j++) {
+                        product.name = name + "-" + j;
+                        versionManager.buildVersion(product).build();
+                    }
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void Merge_In_Place() {
+        ObjectVersionManager<Household, Void> householdManager = new ObjectVersionManager<Household, Void>(householdSerializer).init();
+        Household household = new Household();
+        household.pets = Lists.newArrayList(new Cat("Mirri"), new Dog("Musti"));
+        householdManager.buildVersion(household).build();
+
+        MergeObject<Household> mergeObject = householdManager.mergeObject(DEFAULT_BRANCH);
+        Household live = mergeObject.object;
+        Pet cat = live.pets.get(0);
+        Pet dog = live.pets.get(1);
+
+        household.pets.get(0).name = "Misu";
+        household.pets.add(new Cat("Kisu"));
+        householdManager.buildVersion(household).build();
+
+        mergeObject = householdManager.mergeObject(mergeObject, DEFAULT_BRANCH);
+        assertThat(mergeObject.object, sameInstance(live));
+        assertThat(live.pets.get(0), sameInstance(cat));
+        assertThat(live.pets.get(1), sameInstance(dog));
+        assertThat(householdSerializer.toPropertyMap(live), equalTo(householdSerializer.toPropertyMap(household)));
+
+        household.pets.remove(0);
+        householdManager.buildVersion(household).build();
+
+        mergeObject = householdManager.mergeObject(mergeObject, DEFAULT_BRANCH);
+        assertThat(mergeObject.object, sameInstance(live));
+        assertThat(householdSerializer.toPropertyMap(live), equalTo(householdSerializer.toPropertyMap(household)));
+    }
+
     @SafeVarargs
     private static <T> Set<T> set(final T... ts) {
         return newHashSet(ts);
@@ -0,0 +1,146 @@
+package org.javersion.object;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.javersion.core.Version.DEFAULT_BRANCH;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.javersion.core.Revision;
+import org.javersion.core.VersionLog;
+import org.javersion.path.PropertyPath;
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class ObjectVersionRepositoryTest {
+
+    @Versionable
+    public static class Product {
+        String name;
+    }
+
+    static class MemoryVersionLog implements VersionLog<PropertyPath, Object, ObjectVersion<Void>> {
+
+        final List<ObjectVersion<Void>> versions = Lists.newArrayList();
+
+        boolean failAppend;
+
+        @Override
+        public void append(Iterable<ObjectVersion<Void>> versions) {
+            if (failAppend) {
+                throw new IllegalStateException("append failed");
+            }
+            Iterables.addAll(this.versions, versions);
+        }
+
+        @Override
+        public long position() {
+            return versions.size();
+        }
+
+        @Override
+        public Iterable<ObjectVersion<Void>> from(long position) {
+            return versions.subList((int) position, versions.size());
+        }
+
+        @Override
+        public Iterator<ObjectVersion<Void>> iterator() {
+            return versions.iterator();
+        }
+    }
+
+    private final Map<String, MemoryVersionLog> logs = Maps.newHashMap();
+
+    private final ObjectVersionRepository<String, Product, Void> repository = new ObjectVersionRepository<>(Product.class,
+            new Function<String, MemoryVersionLog>() {
+                @Override
+                public MemoryVersionLog apply(String id) {
+                    MemoryVersionLog log = logs.get(id);
+                    if (log == null) {
+                        log = new MemoryVersionLog();
+                        logs.put(id, log);
+                    }
+                    return log;
+                }
+            }, 1);
+
+    @Test
+    public void Evicted_Entity_Is_Reloaded_From_Log() {
+        repository.commit("a", product("a1"));
+        repository.commit("a", product("a2"));
+        repository.commit("b", product("b1"));
+        assertThat(repository.size(), equalTo(1l));
+
+        assertThat(repository.mergeObject("a", DEFAULT_BRANCH).object.name, equalTo("a2"));
+        assertThat(repository.getVersionGraph("a").versionNodes.size(), equalTo(2));
+
+        // Reloaded manager continues from the latest version
+        ObjectVersion<Void> version = repository.commit("a", product("a3"));
+        assertThat(version.parentRevisions, equalTo((Set<Revision>) ImmutableSet.of(logs.get("a").versions.get(1).revision)));
+        assertThat(logs.get("a").versions.size(), equalTo(3));
+    }
+
+    @Test
+    public void Failed_Append_Evicts_Entity() {
+        repository.commit("a", product("a1"));
+        logs.get("a").failAppend = true;
+        try {
+            repository.commit("a", product("a2"));
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertThat(repository.size(), equalTo(0l));
+
+        logs.get("a").failAppend = false;
+        assertThat(repository.mergeObject("a", DEFAULT_BRANCH).object.name, equalTo("a1"));
+        repository.commit("a", product("a3"));
+        assertThat(logs.get("a").versions.size(), equalTo(2));
+        assertThat(repository.getVersionGraph("a").getLogPosition(), equalTo(2l));
+    }
+
+    @Test
+    public void Bulk_Commit() {
+        Map<String, ObjectVersion<Void>> versions = repository.commit(ImmutableMap.of(
+                "a", product("a1"),
+                "b", product("b1")));
+        assertThat(versions.keySet(), equalTo((Set<String>) ImmutableSet.of("a", "b")));
+        assertThat(repository.mergeObject("a", DEFAULT_BRANCH).object.name, equalTo("a1"));
+        assertThat(repository.mergeObject("b", DEFAULT_BRANCH).object.name, equalTo("b1"));
+    }
+
+    @Test
+    public void Bulk_Commit_Reports_Partial_Success() {
+        repository.commit("b", product("b1"));
+        logs.get("b").failAppend = true;
+        try {
+            repository.commit(ImmutableMap.of(
+                    "a", product("a1"),
+                    "b", product("b2")));
+            fail("Expected PartialCommitException");
+        } catch (PartialCommitException e) {
+            assertThat(e.committed.keySet(), equalTo((Set<Object>) ImmutableSet.<Object> of("a")));
+            assertThat(e.failedId, equalTo((Object) "b"));
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        }
+        assertThat(logs.get("a").versions.size(), equalTo(1));
+        assertThat(logs.get("b").versions.size(), equalTo(1));
+    }
+
+    private static Product product(String name) {
+        Product product = new Product();
+        product.name = name;
+        return product;
+    }
+}
@@ -0,0 +1,64 @@
+package org.javersion.object;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.javersion.path.PropertyPath.ROOT;
+import static org.javersion.path.PropertyPath.parse;
+import static org.junit.Assert.assertThat;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.javersion.path.PropertyPath;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+public class PropertyIndexTest {
+
+    @Test
+    public void Subtree() {
+        PropertyIndex index = PropertyIndex.of(properties("a", "a.b", "a.c.d", "e"));
+        assertThat(subtree(index, parse("a")), equalTo(paths("a", "a.b", "a.c", "a.c.d")));
+        assertThat(subtree(index, parse("e")), equalTo(paths("e")));
+    }
+
+    @Test
+    public void Update_Links_And_Unlinks_Ancestors() {
+        PropertyIndex index = PropertyIndex.of(properties("a", "a.b.c", "e"));
+
+        Map<PropertyPath, Object> properties = properties("a", "a.x.y", "e");
+        index = index.update(ImmutableList.of(parse("a.b.c"), parse("a.x.y")), properties);
+        assertThat(subtree(index, ROOT), equalTo(subtree(PropertyIndex.of(properties), ROOT)));
+        assertThat(index.contains(parse("a.b")), equalTo(false));
+        assertThat(index.contains(parse("a.x")), equalTo(true));
+
+        properties = properties("e");
+        index = index.update(ImmutableList.of(parse("a"), parse("a.x.y")), properties);
+        assertThat(subtree(index, ROOT), equalTo(paths("", "e")));
+    }
+
+    private static Set<PropertyPath> subtree(PropertyIndex index, PropertyPath path) {
+        Set<PropertyPath> result = Sets.newHashSet();
+        index.addSubtree(path, result);
+        return result;
+    }
+
+    private static Map<PropertyPath, Object> properties(String... paths) {
+        ImmutableMap.Builder<PropertyPath, Object> builder = ImmutableMap.builder();
+        for (PropertyPath path : paths(paths)) {
+            builder.put(path, "value");
+        }
+        return builder.build();
+    }
+
+    private static Set<PropertyPath> paths(String... paths) {
+        ImmutableSet.Builder<PropertyPath> builder = ImmutableSet.builder();
+        for (String path : paths) {
+            builder.add(parse(path));
+        }
+        return builder.build();
+    }
+}
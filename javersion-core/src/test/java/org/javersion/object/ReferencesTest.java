@@ -3,6 +3,7 @@ package org.javersion.object;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.isIn;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.javersion.object.TestUtil.properties;
 import static org.javersion.object.TestUtil.property;
@@ -14,6 +15,9 @@ import java.util.Map;
 import org.javersion.path.PropertyPath;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
 public class ReferencesTest {
 
     public static class Node {
@@ -46,6 +50,12 @@ public class ReferencesTest {
         }
     }
 
+    @Versionable
+    public static class Pair {
+        public Node first;
+        public Node second;
+    }
+
     public static TypeMappings typeMappings = TypeMappings.builder()
             .withClass(Node.class)
             .asReferenceWithAlias("nodes")
@@ -86,4 +96,40 @@ public class ReferencesTest {
         assertThat(root.left.left, sameInstance(root));
         assertThat(root.left.right, sameInstance(root.left));
     }
+
+    @Test
+    public void Stream_Into_Sink() {
+        Node root = new Node(1);
+        root.left = new Node(2);
+        root.right = root;
+        root.left.left = root;
+        root.left.right = root.left;
+
+        final Map<PropertyPath, Object> streamed = Maps.newLinkedHashMap();
+        nodeSerializer.write(root, new PropertySink() {
+            @Override
+            public void put(PropertyPath path, Object value) {
+                assertThat(streamed.put(path, value), nullValue());
+            }
+        });
+        assertThat(ImmutableList.copyOf(streamed.entrySet()),
+                equalTo(ImmutableList.copyOf(nodeSerializer.toPropertyMap(root).entrySet())));
+    }
+
+    @Test
+    public void Patch_Reference_To_Existing_Target() {
+        ObjectSerializer<Pair> pairSerializer = new ObjectSerializer<>(Pair.class, typeMappings);
+        Pair pair = new Pair();
+        pair.first = new Node(1);
+        pair.second = new Node(2);
+        pair.first.left = pair.second;
+        Pair live = pairSerializer.fromPropertyMap(pairSerializer.toPropertyMap(pair));
+
+        pair.second = pair.first;
+        Map<PropertyPath, Object> properties = pairSerializer.toPropertyMap(pair);
+        Pair patched = pairSerializer.patch(live, properties, ImmutableList.of(property("second")));
+        assertThat(patched.first.id, equalTo(1));
+        assertThat(patched.second, sameInstance(patched.first));
+        assertThat(patched.first.left.id, equalTo(2));
+    }
 }
@@ -0,0 +1,31 @@
+package org.javersion.object;
+
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class SchemaCacheTest {
+
+    @Versionable
+    public static class Product {
+        String name;
+    }
+
+    private final SchemaCache schemaCache = new SchemaCache();
+
+    @Test
+    public void Schema_Is_Described_Once() {
+        SchemaRoot schema = schemaCache.get(Product.class);
+        assertThat(schemaCache.get(Product.class), sameInstance(schema));
+        assertThat(schemaCache.get(Product.class, TypeMappings.builder().build()), not(sameInstance(schema)));
+    }
+
+    @Test
+    public void Invalidate() {
+        SchemaRoot schema = schemaCache.get(Product.class);
+        schemaCache.invalidate(Product.class);
+        assertThat(schemaCache.get(Product.class), not(sameInstance(schema)));
+    }
+}
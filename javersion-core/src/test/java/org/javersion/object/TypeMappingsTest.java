@@ -0,0 +1,57 @@
+package org.javersion.object;
+
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.javersion.object.mapping.SimpleTypeMapping;
+import org.javersion.object.mapping.TypeMapping;
+import org.javersion.path.PropertyPath;
+import org.javersion.reflect.TypeDescriptors;
+import org.junit.Test;
+
+public class TypeMappingsTest {
+
+    public enum Color { RED }
+
+    public static class Unmapped {}
+
+    public static class SubUnmapped extends Unmapped {}
+
+    private static LocalTypeDescriptor type(Class<?> clazz) {
+        return new LocalTypeDescriptor(TypeDescriptors.getTypeDescriptor(clazz));
+    }
+
+    @Test
+    public void Lookup_By_Class() {
+        TypeMappings typeMappings = TypeMappings.DEFAULT;
+        assertThat(typeMappings.getTypeMapping(PropertyPath.ROOT, type(String.class)), sameInstance(TypeMappings.STRING));
+        assertThat(typeMappings.getTypeMapping(PropertyPath.ROOT, type(int.class)), sameInstance(TypeMappings.INTEGER));
+        assertThat(typeMappings.getTypeMapping(PropertyPath.ROOT, type(Integer.class)), sameInstance(TypeMappings.INTEGER));
+        assertThat(typeMappings.getTypeMapping(PropertyPath.ROOT, type(Color.class)), sameInstance(TypeMappings.ENUM));
+    }
+
+    @Test
+    public void First_Registered_Mapping_Wins() {
+        TypeMapping custom = new SimpleTypeMapping(String.class);
+        TypeMappings typeMappings = TypeMappings.builder().withMapping(custom).build();
+        assertThat(typeMappings.getTypeMapping(PropertyPath.ROOT, type(String.class)), sameInstance(custom));
+    }
+
+    @Test
+    public void Overridden_Applies_Is_Not_Indexed() {
+        TypeMapping custom = new SimpleTypeMapping(Unmapped.class) {
+            @Override
+            public boolean applies(PropertyPath path, LocalTypeDescriptor localTypeDescriptor) {
+                return Unmapped.class.isAssignableFrom(localTypeDescriptor.typeDescriptor.getRawType());
+            }
+        };
+        TypeMappings typeMappings = TypeMappings.builder().withMapping(custom).build();
+        assertThat(typeMappings.getTypeMapping(PropertyPath.ROOT, type(SubUnmapped.class)), sameInstance(custom));
+        assertThat(typeMappings.getTypeMapping(PropertyPath.ROOT, type(String.class)), sameInstance(TypeMappings.STRING));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Unmapped_Type() {
+        TypeMappings.DEFAULT.getTypeMapping(PropertyPath.ROOT, type(Unmapped.class));
+    }
+}
@@ -0,0 +1,82 @@
+package org.javersion.object.processor;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.javersion.reflect.FieldAccessor;
+import org.javersion.reflect.GeneratedAccessorStrategy;
+import org.javersion.reflect.ReflectionAccessorStrategy;
+import org.junit.Test;
+
+public class VersionableProcessorTest {
+
+    private static final String SOURCE = "package test;\n"
+            + "@org.javersion.object.Versionable\n"
+            + "public class Product {\n"
+            + "    String name;\n"
+            + "    int amount;\n"
+            + "    private String secret;\n"
+            + "}\n";
+
+    private final GeneratedAccessorStrategy strategy = new GeneratedAccessorStrategy(ReflectionAccessorStrategy.INSTANCE);
+
+    @Test
+    public void Generated_Accessors() throws Exception {
+        Class<?> productClass = compile("test.Product", SOURCE);
+
+        Object product = strategy.getInstantiator(productClass).newInstance();
+        assertThat(product.getClass(), equalTo((Object) productClass));
+
+        FieldAccessor name = strategy.getFieldAccessor(productClass.getDeclaredField("name"));
+        assertThat(name.getClass().getName(), startsWith("test.Product_Accessors"));
+        name.set(product, "name");
+        assertThat((String) name.get(product), equalTo("name"));
+
+        FieldAccessor amount = strategy.getFieldAccessor(productClass.getDeclaredField("amount"));
+        amount.set(product, 123);
+        assertThat((Integer) amount.get(product), equalTo(123));
+
+        // Private fields fall back to reflection
+        FieldAccessor secret = strategy.getFieldAccessor(productClass.getDeclaredField("secret"));
+        assertThat(secret.getClass().getName(), startsWith(ReflectionAccessorStrategy.class.getName()));
+        secret.set(product, "secret");
+        assertThat((String) secret.get(product), equalTo("secret"));
+    }
+
+    private static Class<?> compile(final String className, final String source) throws IOException, ClassNotFoundException {
+        File output = Files.createTempDirectory("javersion-processor").toFile();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, asList(output));
+            fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, asList(output));
+            JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            };
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+                    asList("-classpath", System.getProperty("java.class.path")), null, asList(sourceFile));
+            task.setProcessors(asList(new VersionableProcessor()));
+            assertThat(task.call(), equalTo(true));
+        }
+        URLClassLoader classLoader = new URLClassLoader(new URL[] { output.toURI().toURL() }, VersionableProcessorTest.class.getClassLoader());
+        return classLoader.loadClass(className);
+    }
+}
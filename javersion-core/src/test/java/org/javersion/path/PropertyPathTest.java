@@ -48,6 +48,14 @@ public class PropertyPathTest {
         assertThat(children_0_name(), not(equalTo(parents_0_name)));
     }
     
+    @Test
+    public void Paths_Are_Interned() {
+        assertThat(children_0_name(), sameInstance(children_0_name()));
+        assertThat(PropertyPath.parse("parents[0].name"), sameInstance(parents_0_name));
+        assertThat(parents_0_name.toSchemaPath(), sameInstance(parents.index("").property("name")));
+        assertThat(parents_0_name.toSchemaPath(), sameInstance(parents_1_name.toSchemaPath()));
+    }
+
     @Test
     public void Hash_Code() {
         HashSet<PropertyPath> paths = newHashSet(
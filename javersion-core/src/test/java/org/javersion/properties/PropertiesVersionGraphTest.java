@@ -18,8 +18,11 @@ package org.javersion.properties;
 import static com.google.common.base.Predicates.notNull;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
+import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableMap;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.javersion.core.Version.DEFAULT_BRANCH;
 import static org.junit.Assert.assertThat;
 
@@ -31,6 +34,8 @@ import java.util.Set;
 
 import org.javersion.core.BranchAndRevision;
 import org.javersion.core.Merge;
+import org.javersion.core.MergeCache;
+import org.javersion.core.PropertyChange;
 import org.javersion.core.Revision;
 import org.javersion.core.VersionType;
 import org.javersion.properties.PropertiesVersionGraph;
@@ -41,6 +46,7 @@ import com.google.common.base.Function;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
@@ -295,6 +301,104 @@ public class PropertiesVersionGraphTest {
         }
     }
 
+    @Test
+    public void Merging_Ancestor_Is_Fast_Forward() {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        PropertiesVersionGraph versionGraph = PropertiesVersionGraph.init(Arrays.asList(
+                version(r1).changeset(mapOf("key", "value1")).build(),
+                version(r2).parents(r1).changeset(mapOf("key", "value2")).build()));
+
+        Merge<String, String> merge = versionGraph.mergeRevisions(setOf(r1, r2));
+        assertThat(merge.getMergeHeads(), equalTo(setOf(r2)));
+        assertThat(merge.mergedProperties, sameInstance(versionGraph.getVersionNode(r2).mergedProperties));
+        assertThat(merge.getProperties(), equalTo(mapOf("key", "value2")));
+    }
+
+    @Test
+    public void Diff_Against_Merge() {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        PropertiesVersionGraph versionGraph = PropertiesVersionGraph.init(Arrays.asList(
+                version(r1).changeset(mapOf("name", "John", "status", "Single", "mood", "Lonely")).build(),
+                version(r2).parents(r1).changeset(mapOf("mood", null)).build()));
+
+        Merge<String, String> merge = versionGraph.mergeRevisions(setOf(r2));
+        assertThat(merge.diff(mapOf("name", "John", "status", "Married", "mood", null)), equalTo(mapOf("status", "Married")));
+        assertThat(merge.diff(mapOf("name", "John", "mood", "Happy")), equalTo(mapOf("status", null, "mood", "Happy")));
+        assertThat(merge.diff(EMPTY_PROPERTIES), equalTo(mapOf("name", null, "status", null)));
+    }
+
+    @Test
+    public void Diff_Between_Revisions() {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        PropertiesVersionGraph versionGraph = PropertiesVersionGraph.init(Arrays.asList(
+                version(r1).changeset(mapOf("name", "John", "status", "Single", "mood", "Lonely")).build(),
+                version(r2).parents(r1).changeset(mapOf("status", "Married", "mood", null, "married", "2013-10-12")).build()));
+
+        Map<String, PropertyChange<String, String>> changes = Maps.newHashMap();
+        for (PropertyChange<String, String> change : versionGraph.diff(r1, r2)) {
+            changes.put(change.key, change);
+        }
+        assertThat(changes.keySet(), equalTo(setOf("status", "mood", "married")));
+
+        PropertyChange<String, String> status = changes.get("status");
+        assertThat(status.getOldValue(), equalTo("Single"));
+        assertThat(status.getNewValue(), equalTo("Married"));
+        assertThat(status.oldProperty.revision, equalTo(r1));
+        assertThat(status.newProperty.revision, equalTo(r2));
+
+        assertThat(changes.get("mood").getNewValue(), nullValue());
+        assertThat(changes.get("married").oldProperty, nullValue());
+
+        assertThat(Iterables.size(versionGraph.diff(null, r1)), equalTo(3));
+        assertThat(Iterables.isEmpty(versionGraph.diff(r2, r2)), equalTo(true));
+    }
+
+    @Test
+    public void Merge_Cache_Hits_Until_Heads_Change() {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        MergeCache<String, String> mergeCache = MergeCache.maximumSize(10);
+        PropertiesVersionGraph versionGraph = PropertiesVersionGraph.init(
+                version(r1).changeset(mapOf("key", "value1")).build())
+                .withMergeCache(mergeCache);
+
+        Merge<String, String> merge = versionGraph.mergeBranches(asList(DEFAULT_BRANCH));
+        assertThat(versionGraph.mergeBranches(asList(DEFAULT_BRANCH)), sameInstance(merge));
+        assertThat(mergeCache.missCount(), equalTo(1l));
+        assertThat(mergeCache.hitCount(), equalTo(1l));
+
+        versionGraph = versionGraph.commit(version(r2).parents(r1).changeset(mapOf("key", "value2")).build());
+        assertThat(versionGraph.getMergeCache(), sameInstance(mergeCache));
+        assertThat(versionGraph.mergeBranches(asList(DEFAULT_BRANCH)).getProperties(), equalTo(mapOf("key", "value2")));
+        assertThat(mergeCache.missCount(), equalTo(2l));
+
+        assertThat(versionGraph.mergeRevisions(setOf(r1)).getProperties(), equalTo(mapOf("key", "value1")));
+        assertThat(versionGraph.mergeRevisions(setOf(r1)).getProperties(), equalTo(mapOf("key", "value1")));
+        assertThat(mergeCache.missCount(), equalTo(3l));
+        assertThat(mergeCache.hitCount(), equalTo(2l));
+    }
+
+    @Test
+    public void Forks_Do_Not_Share_Revision_Index() {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        Revision r3 = new Revision();
+        PropertiesVersionGraph versionGraph = PropertiesVersionGraph.init(asList(
+                version(r1).changeset(mapOf("key", "value1")).build(),
+                version(r2).parents(r1).changeset(mapOf("key", "value2")).build()));
+
+        PropertiesVersionGraph fork1 = versionGraph.commit(version(r3).parents(r2).changeset(mapOf("other", "a")).build());
+        PropertiesVersionGraph fork2 = versionGraph.commit(version(r3).parents(r1).changeset(mapOf("other", "b")).build());
+
+        assertThat(fork1.getVersionNode(r3).mergedRevisions.contains(r2), equalTo(true));
+        assertThat(fork2.getVersionNode(r3).mergedRevisions.contains(r2), equalTo(false));
+        assertThat(fork2.mergeRevisions(setOf(r2, r3)).getProperties(), equalTo(mapOf("key", "value2", "other", "b")));
+        assertThat(versionGraph.getVersionNode(r2).mergedRevisions.contains(r3), equalTo(false));
+    }
+
     static List<List<VersionExpectation>> getBulkExpectations() {
         List<List<VersionExpectation>> bulks = Lists.newArrayList();
         for (int i=1; i<= EXPECTATIONS.size(); i++) {
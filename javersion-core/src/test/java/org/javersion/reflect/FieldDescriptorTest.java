@@ -27,6 +27,11 @@ public class FieldDescriptorTest {
     
     private String thisIs;
 
+    private int primitive;
+
+    static final TypeDescriptors REFLECTION_TYPES = new TypeDescriptors(
+            AbstractTypeDescriptors.NON_STATIC_OR_SYNTETHIC_FIELD, ReflectionAccessorStrategy.INSTANCE);
+
     @Test
     public void Get_Success() {
         FieldDescriptor fieldDescriptor = getTYPESDescriptor();
@@ -50,4 +55,33 @@ public class FieldDescriptorTest {
         assertThat(thisIs, equalTo("Magic!"));
     }
     
+    @Test
+    public void Set_With_Reflection() {
+        FieldDescriptor fieldDescriptor = REFLECTION_TYPES.get(FieldDescriptorTest.class).getField("thisIs");
+        fieldDescriptor.set(this, "Magic!");
+        assertThat((String) fieldDescriptor.get(this), equalTo("Magic!"));
+    }
+
+    @Test
+    public void Set_Primitive() {
+        FieldDescriptor fieldDescriptor = TYPES.get(FieldDescriptorTest.class).getField("primitive");
+        fieldDescriptor.set(this, 123);
+        assertThat((Integer) fieldDescriptor.get(this), equalTo(123));
+    }
+
+    @Test(expected=ReflectionException.class)
+    public void Set_Primitive_Null() {
+        TYPES.get(FieldDescriptorTest.class).getField("primitive").set(this, null);
+    }
+
+    @Test
+    public void New_Instance_With_Private_Constructor() {
+        assertThat(TYPES.get(PrivateConstructor.class).newInstance().getClass(), equalTo((Object) PrivateConstructor.class));
+        assertThat(REFLECTION_TYPES.get(PrivateConstructor.class).newInstance().getClass(), equalTo((Object) PrivateConstructor.class));
+    }
+
+    static class PrivateConstructor {
+        private PrivateConstructor() {}
+    }
+
 }
@@ -19,6 +19,7 @@ import static com.google.common.collect.Sets.newHashSet;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import java.io.Serializable;
@@ -28,12 +29,18 @@ import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
 
 public class TypeDescriptorTest {
 
@@ -150,4 +157,27 @@ public class TypeDescriptorTest {
                 equalTo(STATIC_FIELDS.get(TypeDescriptor.class)));
     }
     
+    @Test
+    public void Concurrent_Lookups_Share_Descriptor() throws Exception {
+        final TypeDescriptors types = new TypeDescriptors();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TypeDescriptor>> results = Lists.newArrayList();
+            for (int i=0; i < 16; i++) {
+                results.add(executor.submit(new Callable<TypeDescriptor>() {
+                    @Override
+                    public TypeDescriptor call() {
+                        return types.get(Generic.class);
+                    }
+                }));
+            }
+            TypeDescriptor expected = types.get(Generic.class);
+            for (Future<TypeDescriptor> result : results) {
+                assertThat(result.get(), sameInstance(expected));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
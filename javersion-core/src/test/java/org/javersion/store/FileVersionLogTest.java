@@ -0,0 +1,300 @@
+package org.javersion.store;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.javersion.properties.PropertiesVersionGraphTest.mapOf;
+import static org.javersion.properties.PropertiesVersionGraphTest.setOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.javersion.core.Checkpoint;
+import org.javersion.core.Revision;
+import org.javersion.properties.PropertiesVersion;
+import org.javersion.properties.PropertiesVersionCodec;
+import org.javersion.properties.PropertiesVersionGraph;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class FileVersionLogTest {
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("javersion");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        for (Path path : segments()) {
+            Files.delete(path);
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void Commit_Appends_To_Log() {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            PropertiesVersionGraph graph = PropertiesVersionGraph.init(log);
+            graph = graph.commit(version(r1, null, "firstName", "John", "lastName", "Doe"));
+            graph = graph.commit(version(r2, r1, "lastName", null));
+            assertThat(revisions(log), contains(r1, r2));
+        }
+
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            PropertiesVersionGraph graph = PropertiesVersionGraph.init(log);
+            assertThat(graph.mergeRevisions(setOf(r2)).getProperties(), equalTo(mapOf("firstName", "John")));
+
+            PropertiesVersion v1 = graph.getVersionNode(r1).version;
+            assertThat(v1.changeset, equalTo(mapOf("firstName", "John", "lastName", "Doe")));
+            assertThat(graph.getVersionNode(r2).version.parentRevisions, equalTo(setOf(r1)));
+        }
+    }
+
+    @Test
+    public void Stale_Graph_Cannot_Commit() {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            PropertiesVersionGraph stale = PropertiesVersionGraph.init(log);
+            stale.commit(version(r1, null, "key", "value"));
+            try {
+                stale.commit(version(r2, null, "key", "value2"));
+                fail("Expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            assertThat(revisions(log), contains(r1));
+        }
+    }
+
+    @Test
+    public void Segments_Are_Rolled() throws IOException {
+        List<Revision> revisions = Lists.newArrayList();
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(128)) {
+            PropertiesVersionGraph graph = PropertiesVersionGraph.init(log);
+            Revision parent = null;
+            for (int i=0; i < 10; i++) {
+                Revision revision = new Revision();
+                graph = graph.commit(version(revision, parent, "counter", Integer.toString(i)));
+                revisions.add(revision);
+                parent = revision;
+            }
+        }
+        assertThat(segments().size(), greaterThan(1));
+
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(128)) {
+            assertThat(revisions(log), equalTo(revisions));
+            PropertiesVersionGraph graph = PropertiesVersionGraph.init(log);
+            assertThat(graph.getTip().getProperties(), equalTo(mapOf("counter", "9")));
+        }
+    }
+
+    @Test
+    public void Torn_Record_Is_Truncated() throws IOException {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            PropertiesVersionGraph.init(log).commit(version(r1, null, "key", "value"));
+        }
+        Path segment = segments().get(0);
+        long validSize = Files.size(segment);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(validSize);
+            file.writeInt(1024);
+            file.writeInt(0);
+            file.write(new byte[10]);
+        }
+
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            assertThat(Files.size(segment), equalTo(validSize));
+            PropertiesVersionGraph graph = PropertiesVersionGraph.init(log);
+            graph.commit(version(r2, r1, "key", "value2"));
+            assertThat(revisions(log), contains(r1, r2));
+        }
+    }
+
+    @Test
+    public void Torn_Batch_Is_Discarded_As_A_Whole() throws IOException {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        Revision r3 = new Revision();
+        long validSize;
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            PropertiesVersionGraph graph = PropertiesVersionGraph.init(log).commit(version(r1, null, "key", "value"));
+            validSize = Files.size(segments().get(0));
+            graph.commit(asList(version(r2, r1, "key", "value2"), version(r3, r2, "key", "value3")));
+        }
+        Path segment = segments().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(Files.size(segment) - 4);
+        }
+
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            assertThat(Files.size(segment), equalTo(validSize));
+            assertThat(revisions(log), contains(r1));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void Segment_Size_Is_Limited_To_Mappable_Size() {
+        newLog(Integer.MAX_VALUE + 1L);
+    }
+
+    @Test
+    public void Checkpoint_Restores_Heads_And_Replays_Tail() {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        Revision r3 = new Revision();
+        FileCheckpointStore<String, String, PropertiesVersion> checkpoints = new FileCheckpointStore<>(directory, PropertiesVersionCodec.INSTANCE);
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            PropertiesVersionGraph graph = PropertiesVersionGraph.init(log);
+            graph = graph.commit(version(r1, null, "firstName", "John", "lastName", "Doe"));
+            graph = graph.commit(version(r2, r1, "lastName", null));
+            checkpoints.save(graph.checkpoint());
+            graph.commit(version(r3, r2, "age", "42"));
+        }
+
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            Checkpoint<String, String, PropertiesVersion> checkpoint = checkpoints.loadLatest();
+            assertThat(checkpoint.nodes.size(), equalTo(2));
+            assertThat(revisions(log.from(checkpoint.logPosition)), contains(r3));
+
+            PropertiesVersionGraph graph = PropertiesVersionGraph.init(checkpoint, log);
+            assertThat(graph.getTip().getRevision(), equalTo(r3));
+            assertThat(graph.getTip().getProperties(), equalTo(mapOf("firstName", "John", "age", "42")));
+            assertThat(graph.getTip().mergedRevisions.asSet(), equalTo(setOf(r1, r2, r3)));
+            assertThat(graph.getLogPosition(), equalTo(log.position()));
+        }
+    }
+
+    @Test
+    public void Tail_Branches_From_Checkpointed_Non_Head() {
+        Revision r1 = new Revision();
+        Revision r2 = new Revision();
+        Revision r3 = new Revision();
+        FileCheckpointStore<String, String, PropertiesVersion> checkpoints = new FileCheckpointStore<>(directory, PropertiesVersionCodec.INSTANCE);
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            PropertiesVersionGraph graph = PropertiesVersionGraph.init(log);
+            graph = graph.commit(version(r1, null, "firstName", "John"));
+            graph = graph.commit(version(r2, r1, "lastName", "Doe"));
+            checkpoints.save(graph.checkpoint());
+            graph.commit(version(r3, r1, "age", "42"));
+        }
+
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            PropertiesVersionGraph graph = PropertiesVersionGraph.init(checkpoints.loadLatest(), log);
+            assertThat(graph.getVersionNode(r3).getProperties(), equalTo(mapOf("firstName", "John", "age", "42")));
+            assertThat(graph.getHeads().size(), equalTo(2));
+            assertThat(graph.mergeRevisions(setOf(r2, r3)).getProperties(), equalTo(mapOf("firstName", "John", "lastName", "Doe", "age", "42")));
+            assertThat(graph.mergeRevisions(setOf(r1)).getProperties(), equalTo(mapOf("firstName", "John")));
+
+            Revision r4 = new Revision();
+            graph = graph.commit(version(r4, r1, "firstName", "Jane"));
+            assertThat(graph.getHeads().size(), equalTo(3));
+        }
+    }
+
+    @Test
+    public void Checkpoint_Restores_Parents_Before_Children() {
+        Revision child = new Revision();
+        Revision parent = new Revision();
+        FileCheckpointStore<String, String, PropertiesVersion> checkpoints = new FileCheckpointStore<>(directory, PropertiesVersionCodec.INSTANCE);
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            PropertiesVersionGraph graph = PropertiesVersionGraph.init(log);
+            graph = graph.commit(version(parent, null, "firstName", "John"));
+            graph = graph.commit(version(child, parent, "lastName", "Doe"));
+            checkpoints.save(graph.checkpoint());
+        }
+
+        try (FileVersionLog<String, String, PropertiesVersion> log = newLog(FileVersionLog.DEFAULT_SEGMENT_SIZE)) {
+            Checkpoint<String, String, PropertiesVersion> checkpoint = checkpoints.loadLatest();
+            assertThat(checkpoint.nodes.get(0).version.revision, equalTo(parent));
+
+            PropertiesVersionGraph graph = PropertiesVersionGraph.init(checkpoint, log);
+            assertThat(graph.getHeads().size(), equalTo(1));
+            assertThat(graph.getHeads().getFirstEntry().getValue().getRevision(), equalTo(child));
+            assertThat(graph.getVersionNode(child).getProperties(), equalTo(mapOf("firstName", "John", "lastName", "Doe")));
+        }
+    }
+
+    @Test
+    public void Checkpoint_Stores_Changes_Only() throws IOException {
+        FileCheckpointStore<String, String, PropertiesVersion> checkpoints = new FileCheckpointStore<>(directory, PropertiesVersionCodec.INSTANCE);
+        Revision parent = new Revision();
+        Map<String, String> properties = Maps.newHashMap();
+        for (int i=0; i < 200; i++) {
+            properties.put("property" + i, "value" + i);
+        }
+        PropertiesVersionGraph graph = PropertiesVersionGraph.init(new PropertiesVersion.Builder(parent).changeset(properties).build());
+        for (int i=0; i < 100; i++) {
+            Revision revision = new Revision();
+            graph = graph.commit(version(revision, parent, "property" + i, i % 2 == 0 ? null : "changed"));
+            parent = revision;
+        }
+        checkpoints.save(graph.checkpoint());
+
+        List<Path> files = segments();
+        assertThat(files.size(), equalTo(1));
+        assertThat(Files.size(files.get(0)) < 50000, equalTo(true));
+
+        Checkpoint<String, String, PropertiesVersion> checkpoint = checkpoints.loadLatest();
+        graph = PropertiesVersionGraph.init(checkpoint, null);
+        Map<String, String> expected = Maps.newHashMap(properties);
+        for (int i=0; i < 100; i++) {
+            if (i % 2 == 0) {
+                expected.remove("property" + i);
+            } else {
+                expected.put("property" + i, "changed");
+            }
+        }
+        assertThat(graph.getVersionNode(parent).getProperties(), equalTo(expected));
+    }
+
+    private FileVersionLog<String, String, PropertiesVersion> newLog(long segmentSize) {
+        return new FileVersionLog<>(directory, PropertiesVersionCodec.INSTANCE, segmentSize, false);
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> paths = Lists.newArrayList();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    private static List<Revision> revisions(Iterable<PropertiesVersion> versions) {
+        List<Revision> revisions = Lists.newArrayList();
+        for (PropertiesVersion version : versions) {
+            revisions.add(version.revision);
+        }
+        return revisions;
+    }
+
+    private static PropertiesVersion version(Revision revision, Revision parent, String... changeset) {
+        PropertiesVersion.Builder builder = new PropertiesVersion.Builder(revision)
+                .changeset(mapOf(changeset));
+        if (parent != null) {
+            builder.parents(parent);
+        }
+        return builder.build();
+    }
+}
@@ -1,5 +1,10 @@
 package org.javersion.util;
 
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Map;
+
 import org.junit.Test;
 
 public class MutableHashMapTest {
@@ -11,5 +16,42 @@ public class MutableHashMapTest {
         map.remove(1);
         map.put(1, 1);
     }
+
+    @Test
+    public void Merged_Nodes_Are_Not_Shared_With_Mutable_Source() {
+        MutableHashMap<Integer, Integer> source = new MutableHashMap<>();
+        for (int i=0; i < 1000; i++) {
+            source.put(i, i);
+        }
+        Iterable<Map.Entry<Integer, Integer>> entries = source;
+        PersistentHashMap<Integer, Integer> target = PersistentHashMap.<Integer, Integer>empty().mergeAll(entries, null);
+        for (int i=0; i < 1000; i++) {
+            source.put(i, -i);
+        }
+        source.put(1000, 1000);
+
+        assertThat(target.size(), equalTo(1000));
+        for (int i=0; i < 1000; i++) {
+            assertThat(target.get(i), equalTo(i));
+        }
+    }
+
+    @Test
+    public void Merged_Nodes_Are_Copied_On_Write() {
+        PersistentHashMap<Integer, Integer> source = PersistentHashMap.empty();
+        for (int i=0; i < 1000; i++) {
+            source = source.assoc(i, i);
+        }
+        MutableHashMap<Integer, Integer> target = new MutableHashMap<>();
+        target.mergeAll(source, null);
+        for (int i=0; i < 1000; i++) {
+            target.put(i, -i);
+        }
+
+        assertThat(source.size(), equalTo(1000));
+        for (int i=0; i < 1000; i++) {
+            assertThat(source.get(i), equalTo(i));
+        }
+    }
     
 }
@@ -24,6 +24,7 @@ import static org.junit.Assert.assertThat;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.javersion.util.AbstractHashTrie.ArrayNode;
 import org.javersion.util.AbstractHashTrie.HashNode;
@@ -31,7 +32,9 @@ import org.javersion.util.AbstractHashTrie.Node;
 import org.junit.Test;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 public class PersistentHashMapTest extends AbstractPersistentMapTest<PersistentHashMap<Integer,Integer>>{
     
@@ -250,6 +253,89 @@ public class PersistentHashMapTest extends AbstractPersistentMapTest<PersistentH
         assertThat(map.assocAll(ints).asMap(), equalTo(expected));
     }
 
+    @Test
+    public void Merge_All_Skips_Shared_Entries() {
+        PersistentHashMap<Integer, Integer> base = PersistentHashMap.empty();
+        for (int i=0; i < 10000; i++) {
+            base = base.assoc(i, i);
+        }
+        PersistentHashMap<Integer, Integer> left = base.assoc(1, -1).assoc(10000, 10000);
+        PersistentHashMap<Integer, Integer> right = base.assoc(1, -2).assoc(2, -2).assoc(10001, 10001);
+
+        final List<Integer> merged = Lists.newArrayList();
+        final List<Integer> inserted = Lists.newArrayList();
+        PersistentHashMap<Integer, Integer> result = left.mergeAll(right, new MergerAdapter<Map.Entry<Integer, Integer>>() {
+            @Override
+            public void insert(Map.Entry<Integer, Integer> newEntry) {
+                inserted.add(newEntry.getKey());
+            }
+            @Override
+            public boolean merge(Map.Entry<Integer, Integer> oldEntry, Map.Entry<Integer, Integer> newEntry) {
+                merged.add(newEntry.getKey());
+                return newEntry.getKey() != 1;
+            }
+        });
+        assertThat(inserted, equalTo((List<Integer>) Lists.newArrayList(10001)));
+        assertThat(merged.size() < 100, equalTo(true));
+        assertThat(result.size(), equalTo(10002));
+        assertThat(result.get(1), equalTo(-1));
+        assertThat(result.get(2), equalTo(-2));
+        assertThat(result.get(10000), equalTo(10000));
+        assertThat(result.get(10001), equalTo(10001));
+
+        assertThat(base.mergeAll(base, null), sameInstance(base));
+    }
+
+    @Test
+    public void Merge_All_With_Collisions() {
+        PersistentHashMap<HashKey, Integer> left = PersistentHashMap.empty();
+        PersistentHashMap<HashKey, Integer> right = PersistentHashMap.empty();
+        List<HashKey> keys = Lists.newArrayList();
+        for (int i=0; i < 200; i++) {
+            HashKey key = new HashKey(i % 50);
+            keys.add(key);
+            if (i % 3 != 0) {
+                left = left.assoc(key, i);
+            }
+            if (i % 2 == 0) {
+                right = right.assoc(key, -i);
+            }
+        }
+        PersistentHashMap<HashKey, Integer> result = left.mergeAll(right, null);
+        PersistentHashMap<HashKey, Integer> expected = left.assocAll(right.asMap());
+        assertThat(result.size(), equalTo(expected.size()));
+        for (HashKey key : keys) {
+            assertThat(result.get(key), equalTo(expected.get(key)));
+        }
+    }
+
+    @Test
+    public void Diff_Reports_Changes_Only() {
+        PersistentHashMap<Integer, Integer> from = PersistentHashMap.empty();
+        for (int i=0; i < 10000; i++) {
+            from = from.assoc(i, i);
+        }
+        PersistentHashMap<Integer, Integer> to = from.assoc(1, -1).assoc(2, 2).dissoc(3).assoc(10000, 10000);
+
+        final List<String> changes = Lists.newArrayList();
+        from.diff(to, new DiffHandler<Map.Entry<Integer, Integer>>() {
+            @Override
+            public void insert(Map.Entry<Integer, Integer> newEntry) {
+                changes.add("+" + newEntry.getKey());
+            }
+            @Override
+            public void update(Map.Entry<Integer, Integer> oldEntry, Map.Entry<Integer, Integer> newEntry) {
+                changes.add("*" + newEntry.getKey());
+            }
+            @Override
+            public void delete(Map.Entry<Integer, Integer> oldEntry) {
+                changes.add("-" + oldEntry.getKey());
+            }
+        });
+        assertThat(Sets.newHashSet(changes), equalTo((Set<String>) ImmutableSet.of("*1", "-3", "+10000")));
+        assertThat(changes.size(), equalTo(3));
+    }
+
     @Override
     protected PersistentHashMap<Integer, Integer> emptyMap() {
         return PersistentHashMap.empty();
@@ -35,6 +35,8 @@ import org.javersion.util.AbstractRedBlackTree.Color;
 import org.javersion.util.AbstractTreeMap.Node;
 import org.junit.Test;
 
+import com.google.common.collect.Lists;
+
 public class PersistentTreeMapTest extends AbstractPersistentMapTest<PersistentTreeMap<Integer, Integer>> {
 
     @Test
@@ -230,6 +232,45 @@ public class PersistentTreeMapTest extends AbstractPersistentMapTest<PersistentT
         assertTrue("Expected black node (or null)", node == null || node.color == Color.BLACK);
     }
 
+    @Test
+    public void Diff_Reports_Changes_In_Order() {
+        PersistentTreeMap<Integer, Integer> from = emptyMap();
+        for (Integer kv : randoms(10000)) {
+            from = from.assoc(kv, kv);
+        }
+        PersistentTreeMap<Integer, Integer> to = from;
+        for (int i=0; i < 10; i++) {
+            to = to.assoc(-i - 1, i).assoc(i * 1000, -1).dissoc(i * 1000 + 1);
+        }
+
+        final List<String> changes = Lists.newArrayList();
+        final List<String> expected = Lists.newArrayList();
+        from.diff(to, new DiffHandler<Map.Entry<Integer, Integer>>() {
+            @Override
+            public void insert(Map.Entry<Integer, Integer> newEntry) {
+                changes.add("+" + newEntry.getKey());
+            }
+            @Override
+            public void update(Map.Entry<Integer, Integer> oldEntry, Map.Entry<Integer, Integer> newEntry) {
+                changes.add("*" + newEntry.getKey());
+            }
+            @Override
+            public void delete(Map.Entry<Integer, Integer> oldEntry) {
+                changes.add("-" + oldEntry.getKey());
+            }
+        });
+        for (int i=9; i >= 0; i--) {
+            expected.add((from.containsKey(-i - 1) ? "*" : "+") + (-i - 1));
+        }
+        for (int i=0; i < 10; i++) {
+            expected.add((from.containsKey(i * 1000) ? "*" : "+") + i * 1000);
+            if (from.containsKey(i * 1000 + 1)) {
+                expected.add("-" + (i * 1000 + 1));
+            }
+        }
+        assertThat(changes, equalTo(expected));
+    }
+
     @Override
     protected PersistentTreeMap<Integer, Integer> emptyMap() {
         return PersistentTreeMap.<Integer, Integer>empty();
@@ -0,0 +1,47 @@
+import static java.lang.System.out;
+
+import java.lang.reflect.Field;
+
+import org.javersion.reflect.AccessorStrategy;
+import org.javersion.reflect.FieldAccessor;
+import org.javersion.reflect.MethodHandleAccessorStrategy;
+import org.javersion.reflect.ReflectionAccessorStrategy;
+
+/**
+ * Compares field access through accessor strategies. Accessors are held in
+ * fields like in FieldDescriptor, i.e. they are not constants for the JIT.
+ */
+public class AccessorPerfTest {
+
+    public static class Bean {
+        private String name;
+        private long count;
+    }
+
+    private static final int ROUNDS = 10;
+
+    private static final int ITERATIONS = 10000000;
+
+    public static void main(String[] args) throws Exception {
+        for (int i=0; i < ROUNDS; i++) {
+            run("Reflection", ReflectionAccessorStrategy.INSTANCE);
+            run("MethodHandle", MethodHandleAccessorStrategy.INSTANCE);
+        }
+    }
+
+    private static void run(String name, AccessorStrategy strategy) throws Exception {
+        Field nameField = Bean.class.getDeclaredField("name");
+        Field countField = Bean.class.getDeclaredField("count");
+        FieldAccessor nameAccessor = strategy.getFieldAccessor(nameField);
+        FieldAccessor countAccessor = strategy.getFieldAccessor(countField);
+        Bean bean = new Bean();
+        long sum = 0;
+        long begin = System.nanoTime();
+        for (int i=0; i < ITERATIONS; i++) {
+            nameAccessor.set(bean, i % 2 == 0 ? "a" : "b");
+            countAccessor.set(bean, (long) i);
+            sum += ((String) nameAccessor.get(bean)).length() + (Long) countAccessor.get(bean);
+        }
+        out.println(String.format("%s: %d ms (%d)", name, (System.nanoTime() - begin) / 1000000, sum));
+    }
+}